@@ -39,7 +39,9 @@ LOCAL_JNI_SHARED_LIBRARIES := \
     librtandroid-thread
 
 LOCAL_PACKAGE_NAME := Benchmark
-LOCAL_SRC_FILES := $(call all-java-files-under, src)
+LOCAL_SRC_FILES := \
+    $(call all-java-files-under, src) \
+    $(call all-java-files-under, core/src)
 
 LOCAL_RESOURCE_DIR := \
     $(addprefix $(LOCAL_PATH)/, res) \
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.benchmarks;
+
+/**
+ * Allocates objects to put pressure on the garbage collector.
+ *
+ * The parameter is the number of allocations per execution. Short-lived objects become garbage
+ * right away, medium-lived ones replace entries of a retained pool and survive a few thousand
+ * allocations, large arrays quickly fill the heap. Comparing them with the allocation-free
+ * benchmarks shows how much collector pauses hit the measuring thread.
+ */
+public class AllocationPressure implements Benchmark
+{
+    public static final int LIFETIME_SHORT = 0;
+    public static final int LIFETIME_MEDIUM = 1;
+    public static final int LIFETIME_LARGE = 2;
+    private static final String[] LIFETIME_NAMES = { "Short", "Medium", "Large" };
+
+    private static final int POOL_SIZE = 4096;
+    private static final int LARGE_ARRAY_SIZE = 64 * 1024;
+
+    private final int mLifetime;
+    private final Node[] mPool = new Node[POOL_SIZE];
+    private int mPoolIdx = 0;
+    private long mChecksum = 0;
+
+    /**
+     * Small object graph, a node with a payload array.
+     */
+    private static class Node
+    {
+        final long[] mPayload = new long[4];
+        Node mNext;
+
+        Node(Node next, long value)
+        {
+            mNext = next;
+            mPayload[0] = value;
+        }
+    }
+
+    public AllocationPressure(int lifetime)
+    {
+        mLifetime = lifetime;
+    }
+
+    @Override
+    public void execute(int parameter)
+    {
+        switch (mLifetime)
+        {
+            case LIFETIME_SHORT:
+                // A short chain which is dropped after every few nodes
+                Node head = null;
+                for (int i = 0; i < parameter; i++)
+                {
+                    head = new Node((i % 8 == 0) ? null : head, i);
+                    mChecksum += head.mPayload[0];
+                }
+                break;
+
+            case LIFETIME_MEDIUM:
+                // Replaced nodes become garbage after surviving a full round of the pool
+                for (int i = 0; i < parameter; i++)
+                {
+                    Node node = new Node(null, i);
+                    mPool[mPoolIdx] = node;
+                    mPoolIdx = (mPoolIdx + 1) % POOL_SIZE;
+                    mChecksum += node.mPayload[0];
+                }
+                break;
+
+            case LIFETIME_LARGE:
+                for (int i = 0; i < parameter; i++)
+                {
+                    byte[] array = new byte[LARGE_ARRAY_SIZE];
+                    array[i % LARGE_ARRAY_SIZE] = (byte) i;
+                    mChecksum += array.length;
+                }
+                break;
+
+            default: throw new RuntimeException("Unknown allocation lifetime");
+        }
+    }
+
+    @Override
+    public String getName()
+    {
+        return "Allocation-" + LIFETIME_NAMES[mLifetime];
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.benchmarks;
+
+/**
+ * Central management class for all benchmarks which should be available in the test suite.
+ */
+public class BenchmarkManager
+{
+    public static final int NO_BENCHMARK = -1;
+
+    /**
+     * @return Index of the benchmark with the given name ignoring the case, or {@link #NO_BENCHMARK}.
+     */
+    public static int findBenchmark(String name)
+    {
+        Benchmark[] benchmarks = getBenchmarks();
+        for (int i = 0; i < benchmarks.length; i++)
+        {
+            if (benchmarks[i].getName().equalsIgnoreCase(name)) { return i; }
+        }
+
+        return NO_BENCHMARK;
+    }
+
+    public static Benchmark[] getBenchmarks()
+    {
+        return new Benchmark[]
+        {
+            new DoubleMatrixMultiplication(MatrixMultiplication.VARIANT_NAIVE),
+            new DoubleMatrixMultiplication(MatrixMultiplication.VARIANT_TILED),
+            new DoubleMatrixMultiplication(MatrixMultiplication.VARIANT_TRANSPOSED),
+            new FloatMatrixMultiplication(MatrixMultiplication.VARIANT_NAIVE),
+            new FloatMatrixMultiplication(MatrixMultiplication.VARIANT_TILED),
+            new FloatMatrixMultiplication(MatrixMultiplication.VARIANT_TRANSPOSED),
+            new IntMatrixMultiplication(MatrixMultiplication.VARIANT_NAIVE),
+            new IntMatrixMultiplication(MatrixMultiplication.VARIANT_TILED),
+            new IntMatrixMultiplication(MatrixMultiplication.VARIANT_TRANSPOSED),
+            new FibonacciIterative(),
+            new MemoryLatency(4 * 1024),
+            new MemoryLatency(16 * 1024),
+            new MemoryLatency(64 * 1024),
+            new MemoryLatency(256 * 1024),
+            new MemoryLatency(1024 * 1024),
+            new MemoryLatency(4 * 1024 * 1024),
+            new MemoryLatency(16 * 1024 * 1024),
+            new MemoryLatency(64 * 1024 * 1024),
+            new MemoryLatency(256 * 1024 * 1024),
+            new MemoryBandwidth(MemoryBandwidth.KERNEL_COPY, false),
+            new MemoryBandwidth(MemoryBandwidth.KERNEL_SCALE, false),
+            new MemoryBandwidth(MemoryBandwidth.KERNEL_ADD, false),
+            new MemoryBandwidth(MemoryBandwidth.KERNEL_TRIAD, false),
+            new MemoryBandwidth(MemoryBandwidth.KERNEL_COPY, true),
+            new MemoryBandwidth(MemoryBandwidth.KERNEL_SCALE, true),
+            new MemoryBandwidth(MemoryBandwidth.KERNEL_ADD, true),
+            new MemoryBandwidth(MemoryBandwidth.KERNEL_TRIAD, true),
+            new AllocationPressure(AllocationPressure.LIFETIME_SHORT),
+            new AllocationPressure(AllocationPressure.LIFETIME_MEDIUM),
+            new AllocationPressure(AllocationPressure.LIFETIME_LARGE)
+        };
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * Matrix multiplication on int values, see {@link MatrixMultiplication}.
+ */
+public class IntMatrixMultiplication extends MatrixMultiplication
+{
+    private int[] mA;
+    private int[] mB;
+    private int[] mTransposedB;
+    private int[] mC;
+
+    public IntMatrixMultiplication(int variant)
+    {
+        super(variant);
+    }
+
+    @Override
+    protected void allocate(int size)
+    {
+        mA = new int[size * size];
+        mB = new int[size * size];
+        mTransposedB = new int[size * size];
+        mC = new int[size * size];
+
+        for (int row = 0; row < size; row++)
+        {
+            for (int col = 0; col < size; col++)
+            {
+                mA[row * size + col] = inputValue(row, col);
+                mB[row * size + col] = inputValue(col, row);
+                mTransposedB[col * size + row] = mB[row * size + col];
+            }
+        }
+    }
+
+    @Override
+    protected void multiplyNaive(int size, int rowFrom, int rowTo)
+    {
+        int[] a = mA, b = mB, c = mC;
+        for (int i = rowFrom; i < rowTo; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                int sum = 0;
+                for (int k = 0; k < size; k++) { sum += a[i * size + k] * b[k * size + j]; }
+                c[i * size + j] = sum;
+            }
+        }
+    }
+
+    @Override
+    protected void multiplyTiled(int size, int rowFrom, int rowTo)
+    {
+        int[] a = mA, b = mB, c = mC;
+        Arrays.fill(c, rowFrom * size, rowTo * size, 0);
+
+        for (int i0 = rowFrom; i0 < rowTo; i0 += TILE_SIZE)
+        {
+            int iEnd = Math.min(i0 + TILE_SIZE, rowTo);
+            for (int k0 = 0; k0 < size; k0 += TILE_SIZE)
+            {
+                int kEnd = Math.min(k0 + TILE_SIZE, size);
+                for (int j0 = 0; j0 < size; j0 += TILE_SIZE)
+                {
+                    int jEnd = Math.min(j0 + TILE_SIZE, size);
+                    for (int i = i0; i < iEnd; i++)
+                    {
+                        for (int k = k0; k < kEnd; k++)
+                        {
+                            int aik = a[i * size + k];
+                            for (int j = j0; j < jEnd; j++) { c[i * size + j] += aik * b[k * size + j]; }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void multiplyTransposed(int size, int rowFrom, int rowTo)
+    {
+        int[] a = mA, bt = mTransposedB, c = mC;
+        for (int i = rowFrom; i < rowTo; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                int sum = 0;
+                for (int k = 0; k < size; k++) { sum += a[i * size + k] * bt[j * size + k]; }
+                c[i * size + j] = sum;
+            }
+        }
+    }
+
+    @Override
+    protected String getTypeName()
+    {
+        return "int";
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import rtandroid.benchmark.data.TestCase;
+import rtandroid.benchmark.utils.RealTimeUtils;
+
+/**
+ * Multiplies two square matrices into a separate result matrix, C = A * B.
+ *
+ * The parameter is the size of the matrices, clamped to {@link #SIZE_MIN} and {@link #SIZE_MAX},
+ * so the working set ranges from the L1 cache to main memory. One execution takes 2 * n^3
+ * arithmetic operations. Matrices are stored flat in row-major order and only reallocated
+ * when the size changes. Subclasses implement the kernels for one data type.
+ *
+ * Parallel instances split the rows of C into one block per thread. The measuring thread computes
+ * the first block itself and hands the others to a fixed pool of workers. The workers are started
+ * by the measuring thread and inherit its scheduling policy and priority. If the measuring thread
+ * is locked to a core, each worker is locked to one of the following cores, otherwise they would
+ * all time-slice the same one.
+ */
+public abstract class MatrixMultiplication implements RatedBenchmark, ParallelBenchmark
+{
+    public static final int SIZE_MIN = 16;
+    public static final int SIZE_MAX = 1024;
+
+    // Plain i-j-k loops, B is walked column by column
+    public static final int VARIANT_NAIVE = 0;
+    // i-k-j loops over tiles small enough to stay in the L1 cache
+    public static final int VARIANT_TILED = 1;
+    // B is stored transposed, so both inputs are read sequentially
+    public static final int VARIANT_TRANSPOSED = 2;
+    private static final String[] VARIANT_NAMES = { "Naive", "Tiled", "Transposed" };
+
+    // Three tiles of 32x32 doubles take 24 KB
+    protected static final int TILE_SIZE = 32;
+
+    // Idle workers of finished test cases exit after this time
+    private static final long WORKER_KEEP_ALIVE = 10; // in s
+
+    private final int mVariant;
+    private int mThreads = 1;
+    private int mCpuCore = TestCase.NO_CORE_LOCK;
+    private final List<RowBlock> mBlocks = new ArrayList<>();
+    private final List<Future<?>> mPending = new ArrayList<>();
+    private ThreadPoolExecutor mWorkers = null;
+    private int mSize = 0;
+
+    protected MatrixMultiplication(int variant)
+    {
+        mVariant = variant;
+    }
+
+    @Override
+    public void setThreads(int threads)
+    {
+        if (mWorkers != null) { throw new IllegalStateException("Workers already started"); }
+        mThreads = Math.max(threads, 1);
+    }
+
+    @Override
+    public void setCpuCore(int cpuCore)
+    {
+        if (mWorkers != null) { throw new IllegalStateException("Workers already started"); }
+        mCpuCore = cpuCore;
+    }
+
+    @Override
+    public void execute(int parameter)
+    {
+        int size = Math.min(Math.max(parameter, SIZE_MIN), SIZE_MAX);
+        if (size != mSize)
+        {
+            allocate(size);
+            splitRows(size);
+            mSize = size;
+        }
+
+        if (mThreads == 1)
+        {
+            multiply(size, 0, size);
+            return;
+        }
+
+        // Hand all blocks but the first to the workers, then join in
+        for (int i = 1; i < mBlocks.size(); i++) { mPending.add(mWorkers.submit(mBlocks.get(i))); }
+        mBlocks.get(0).run();
+
+        try
+        {
+            for (Future<?> future : mPending) { future.get(); }
+        }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        catch (ExecutionException e) { throw new RuntimeException("Matrix worker failed", e.getCause()); }
+        finally { mPending.clear(); }
+    }
+
+    @Override
+    public String getName()
+    {
+        String name = "Matrix-" + VARIANT_NAMES[mVariant] + "-" + getTypeName();
+        if (mThreads == 1) { return name; }
+
+        return String.format(Locale.US, "%s-%dThreads", name, mThreads);
+    }
+
+    @Override
+    public String getRate(int parameter, long meanNs)
+    {
+        if (meanNs <= 0) { return null; }
+
+        // Operations per nanosecond are billions per second
+        double size = Math.min(Math.max(parameter, SIZE_MIN), SIZE_MAX);
+        return String.format(Locale.US, "%.2f GOP/s", 2 * size * size * size / meanNs);
+    }
+
+    private void multiply(int size, int rowFrom, int rowTo)
+    {
+        switch (mVariant)
+        {
+            case VARIANT_NAIVE: multiplyNaive(size, rowFrom, rowTo); break;
+            case VARIANT_TILED: multiplyTiled(size, rowFrom, rowTo); break;
+            case VARIANT_TRANSPOSED: multiplyTransposed(size, rowFrom, rowTo); break;
+            default: throw new RuntimeException("Unknown matrix variant");
+        }
+    }
+
+    private void splitRows(int size)
+    {
+        if (mThreads == 1) { return; }
+
+        // Tiled blocks start on a tile boundary
+        int align = (mVariant == VARIANT_TILED) ? TILE_SIZE : 1;
+        int rowsPerBlock = (size + mThreads - 1) / mThreads;
+        rowsPerBlock = (rowsPerBlock + align - 1) / align * align;
+
+        mBlocks.clear();
+        for (int rowFrom = 0; rowFrom < size; rowFrom += rowsPerBlock)
+        {
+            mBlocks.add(new RowBlock(size, rowFrom, Math.min(rowFrom + rowsPerBlock, size)));
+        }
+
+        // Started from the measuring thread, so the workers inherit its real-time settings
+        if (mWorkers == null)
+        {
+            mWorkers = new ThreadPoolExecutor(mThreads - 1, mThreads - 1, WORKER_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new WorkerFactory());
+            mWorkers.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Computes a range of rows of the result.
+     */
+    private class RowBlock implements Runnable
+    {
+        private final int mBlockSize;
+        private final int mRowFrom;
+        private final int mRowTo;
+
+        RowBlock(int size, int rowFrom, int rowTo)
+        {
+            mBlockSize = size;
+            mRowFrom = rowFrom;
+            mRowTo = rowTo;
+        }
+
+        @Override
+        public void run()
+        {
+            multiply(mBlockSize, mRowFrom, mRowTo);
+        }
+    }
+
+    /**
+     * Creates daemon workers, so a pool left behind never keeps the process alive.
+     */
+    private class WorkerFactory implements ThreadFactory
+    {
+        private int mCount = 0;
+
+        @Override
+        public Thread newThread(final Runnable runnable)
+        {
+            // Worker i is locked to the i-th core after the measuring one, replacements of timed out workers cycle through the same cores
+            mCount++;
+            final int cpuCore = (mCpuCore == TestCase.NO_CORE_LOCK) ? TestCase.NO_CORE_LOCK : TestCase.getFollowingCpuCore(mCpuCore, (mCount - 1) % (mThreads - 1) + 1);
+            Runnable pinned = new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    RealTimeUtils.setCpuCore(cpuCore);
+                    runnable.run();
+                }
+            };
+
+            Thread thread = new Thread(pinned, getName() + "-worker-" + mCount);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Creates and fills the input matrices and the transposed copy of B.
+     */
+    protected abstract void allocate(int size);
+
+    /**
+     * Computes the rows from rowFrom (inclusive) to rowTo (exclusive) of the result.
+     */
+    protected abstract void multiplyNaive(int size, int rowFrom, int rowTo);
+
+    protected abstract void multiplyTiled(int size, int rowFrom, int rowTo);
+
+    protected abstract void multiplyTransposed(int size, int rowFrom, int rowTo);
+
+    protected abstract String getTypeName();
+
+    /**
+     * @return Small deterministic input values, sums of integer products can not overflow.
+     */
+    protected static int inputValue(int row, int col)
+    {
+        return (row * 7 + col * 3) % 16 - 8;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Locale;
+
+/**
+ * Measures the memory bandwidth with the kernels of the STREAM benchmark.
+ *
+ * The parameter is the length of each of the three arrays in thousands of doubles, clamped to
+ * {@link #LENGTH_MIN} and {@link #LENGTH_MAX} (8 KB to 64 MB per array). The arrays live either on
+ * the Java heap or in direct buffers outside of it. The rate counts the bytes read and written
+ * like STREAM does, writes allocating cache lines are not included.
+ */
+public class MemoryBandwidth implements RatedBenchmark
+{
+    public static final int LENGTH_MIN = 1;
+    public static final int LENGTH_MAX = 8 * 1024;
+
+    public static final int KERNEL_COPY = 0;
+    public static final int KERNEL_SCALE = 1;
+    public static final int KERNEL_ADD = 2;
+    public static final int KERNEL_TRIAD = 3;
+    private static final String[] KERNEL_NAMES = { "Copy", "Scale", "Add", "Triad" };
+    // Doubles read and written per element
+    private static final int[] KERNEL_ACCESSES = { 2, 2, 3, 3 };
+
+    private static final double SCALAR = 3.0;
+
+    private final int mKernel;
+    private final boolean mDirect;
+    private int mLength = 0;
+
+    private double[] mA;
+    private double[] mB;
+    private double[] mC;
+    private DoubleBuffer mDirectA;
+    private DoubleBuffer mDirectB;
+    private DoubleBuffer mDirectC;
+
+    /**
+     * @param direct Whether to use direct buffers instead of arrays on the heap.
+     */
+    public MemoryBandwidth(int kernel, boolean direct)
+    {
+        mKernel = kernel;
+        mDirect = direct;
+    }
+
+    @Override
+    public void execute(int parameter)
+    {
+        int length = getLength(parameter);
+        if (length != mLength)
+        {
+            allocate(length);
+            mLength = length;
+        }
+
+        if (mDirect) { executeDirect(length); }
+                else { executeHeap(length); }
+    }
+
+    private void allocate(int length)
+    {
+        // Drop the old arrays first, so both sizes never have to fit at once
+        mA = mB = mC = null;
+        mDirectA = mDirectB = mDirectC = null;
+
+        if (mDirect)
+        {
+            mDirectA = allocateDirect(length, 1.0);
+            mDirectB = allocateDirect(length, 2.0);
+            mDirectC = allocateDirect(length, 0.0);
+        }
+        else
+        {
+            mA = allocateHeap(length, 1.0);
+            mB = allocateHeap(length, 2.0);
+            mC = allocateHeap(length, 0.0);
+        }
+    }
+
+    private static double[] allocateHeap(int length, double value)
+    {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) { array[i] = value; }
+        return array;
+    }
+
+    private static DoubleBuffer allocateDirect(int length, double value)
+    {
+        DoubleBuffer buffer = ByteBuffer.allocateDirect(length * 8).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        for (int i = 0; i < length; i++) { buffer.put(i, value); }
+        return buffer;
+    }
+
+    private void executeHeap(int length)
+    {
+        double[] a = mA, b = mB, c = mC;
+        switch (mKernel)
+        {
+            case KERNEL_COPY:
+                for (int i = 0; i < length; i++) { c[i] = a[i]; }
+                break;
+
+            case KERNEL_SCALE:
+                for (int i = 0; i < length; i++) { b[i] = SCALAR * c[i]; }
+                break;
+
+            case KERNEL_ADD:
+                for (int i = 0; i < length; i++) { c[i] = a[i] + b[i]; }
+                break;
+
+            case KERNEL_TRIAD:
+                for (int i = 0; i < length; i++) { a[i] = b[i] + SCALAR * c[i]; }
+                break;
+
+            default: throw new RuntimeException("Unknown stream kernel");
+        }
+    }
+
+    private void executeDirect(int length)
+    {
+        DoubleBuffer a = mDirectA, b = mDirectB, c = mDirectC;
+        switch (mKernel)
+        {
+            case KERNEL_COPY:
+                for (int i = 0; i < length; i++) { c.put(i, a.get(i)); }
+                break;
+
+            case KERNEL_SCALE:
+                for (int i = 0; i < length; i++) { b.put(i, SCALAR * c.get(i)); }
+                break;
+
+            case KERNEL_ADD:
+                for (int i = 0; i < length; i++) { c.put(i, a.get(i) + b.get(i)); }
+                break;
+
+            case KERNEL_TRIAD:
+                for (int i = 0; i < length; i++) { a.put(i, b.get(i) + SCALAR * c.get(i)); }
+                break;
+
+            default: throw new RuntimeException("Unknown stream kernel");
+        }
+    }
+
+    private static int getLength(int parameter)
+    {
+        return Math.min(Math.max(parameter, LENGTH_MIN), LENGTH_MAX) * 1024;
+    }
+
+    @Override
+    public String getName()
+    {
+        return "Stream-" + KERNEL_NAMES[mKernel] + "-" + (mDirect ? "direct" : "heap");
+    }
+
+    @Override
+    public String getRate(int parameter, long meanNs)
+    {
+        if (meanNs <= 0) { return null; }
+
+        // Bytes per nanosecond are GB/s
+        double bytes = (double) getLength(parameter) * KERNEL_ACCESSES[mKernel] * 8;
+        return String.format(Locale.US, "%.2f GB/s", bytes / meanNs);
+    }
+}
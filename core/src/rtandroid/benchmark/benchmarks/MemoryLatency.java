@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.benchmarks;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Chases pointers through a working set of a fixed size to measure the memory latency.
+ *
+ * The working set is an int[] holding a single cycle in random order, so every hop depends on the
+ * previous load and the prefetcher can not predict the next address. The parameter is the number
+ * of hops per execution. The chase continues where the previous execution stopped.
+ * Working sets above a few hundred MB need a large heap.
+ */
+public class MemoryLatency implements RatedBenchmark
+{
+    private static final long SEED = 42;
+
+    private final int mSizeBytes;
+    private int[] mNext = null;
+    private int mPosition = 0;
+
+    /**
+     * @param sizeBytes Size of the working set.
+     */
+    public MemoryLatency(int sizeBytes)
+    {
+        mSizeBytes = sizeBytes;
+    }
+
+    @Override
+    public void execute(int parameter)
+    {
+        // Built on first use, all benchmarks are instantiated just to list them
+        if (mNext == null) { mNext = createCycle(mSizeBytes / 4); }
+
+        int[] next = mNext;
+        int position = mPosition;
+        for (int i = 0; i < parameter; i++) { position = next[position]; }
+        mPosition = position;
+    }
+
+    /**
+     * Links all elements into one random cycle (Sattolo's algorithm).
+     */
+    private static int[] createCycle(int length)
+    {
+        int[] next = new int[length];
+        for (int i = 0; i < length; i++) { next[i] = i; }
+
+        Random random = new Random(SEED);
+        for (int i = length - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i);
+            int tmp = next[i];
+            next[i] = next[j];
+            next[j] = tmp;
+        }
+
+        return next;
+    }
+
+    @Override
+    public String getName()
+    {
+        if (mSizeBytes >= 1024 * 1024) { return "Memory-Latency-" + (mSizeBytes / (1024 * 1024)) + "MB"; }
+        return "Memory-Latency-" + (mSizeBytes / 1024) + "KB";
+    }
+
+    @Override
+    public String getRate(int parameter, long meanNs)
+    {
+        if (parameter <= 0) { return null; }
+        return String.format(Locale.US, "%.2f ns/access", (double) meanNs / parameter);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.benchmarks;
+
+/**
+ * Benchmark which can split each execution over several threads.
+ */
+public interface ParallelBenchmark extends Benchmark
+{
+    /**
+     * @param threads Number of threads computing each execution, including the measuring one.
+     */
+    void setThreads(int threads);
+
+    /**
+     * @param cpuCore Core the measuring thread is locked to, the workers are locked to the following ones.
+     */
+    void setCpuCore(int cpuCore);
+}
@@ -14,19 +14,17 @@
  * limitations under the License.
  */
 
+
 package rtandroid.benchmark.benchmarks;
 
 /**
- * Central management class for all benchmarks which should be available in the test suite.
+ * Benchmark whose calculation time can be turned into a rate, e.g. the latency of a memory access.
  */
-public class BenchmarkManager
+public interface RatedBenchmark extends Benchmark
 {
-    public static Benchmark[] getBenchmarks()
-    {
-        return new Benchmark[]
-        {
-            new MatrixMultiplication(),
-            new FibonacciIterative()
-        };
-    }
+    /**
+     * @param meanNs Mean calculation time of one execution with the given parameter.
+     * @return Rate to display, including its unit.
+     */
+    String getRate(int parameter, long meanNs);
 }
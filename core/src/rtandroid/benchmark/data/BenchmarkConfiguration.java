@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.data;
+
+import rtandroid.benchmark.benchmarks.Benchmark;
+import rtandroid.benchmark.benchmarks.BenchmarkManager;
+import rtandroid.benchmark.benchmarks.ParallelBenchmark;
+
+/**
+ * Data class containing all values of benchmark.
+ */
+public class BenchmarkConfiguration
+{
+    public static final int NO_TOLERANCE = 0;
+    public static final int NO_MAX_DURATION = 0;
+    public static final int NO_DURATION = 0;
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 600;
+
+    public int BenchmarkIdx;
+    public int Parameter;
+    public int Cycles;
+    public int SleepUs;
+    public boolean ExportCsv;
+    public boolean Periodic;
+    public int Threads = 1;
+    // Parallel threads run at descending priorities, each one this much below the previous one
+    public int PriorityStep = 0;
+    // Threads computing each execution of a parallel benchmark, including the measuring one
+    public int WorkerThreads = 1;
+    // Adaptive runs stop once the results are stable, using Cycles as budget
+    public int TolerancePercent = NO_TOLERANCE;
+    public int MaxDurationS = NO_MAX_DURATION;
+    // Soak runs measure for a fixed wall-clock time and keep a histogram snapshot per interval
+    public int DurationS = NO_DURATION;
+    public int SnapshotIntervalS = DEFAULT_SNAPSHOT_INTERVAL;
+
+    public BenchmarkConfiguration()
+    {
+        // Only for public constructor
+    }
+
+    public BenchmarkConfiguration(BenchmarkConfiguration other)
+    {
+        BenchmarkIdx = other.BenchmarkIdx;
+        Parameter = other.Parameter;
+        Cycles = other.Cycles;
+        SleepUs = other.SleepUs;
+        ExportCsv = other.ExportCsv;
+        Periodic = other.Periodic;
+        Threads = other.Threads;
+        PriorityStep = other.PriorityStep;
+        WorkerThreads = other.WorkerThreads;
+        TolerancePercent = other.TolerancePercent;
+        MaxDurationS = other.MaxDurationS;
+        DurationS = other.DurationS;
+        SnapshotIntervalS = other.SnapshotIntervalS;
+    }
+
+    public boolean isAdaptive()
+    {
+        return TolerancePercent != NO_TOLERANCE;
+    }
+
+    public boolean isSoak()
+    {
+        return DurationS != NO_DURATION;
+    }
+
+    public Benchmark getBenchmark()
+    {
+        Benchmark[] benchmarks = BenchmarkManager.getBenchmarks();
+        if (BenchmarkIdx < 0 || BenchmarkIdx >= benchmarks.length) { return null; }
+
+        Benchmark benchmark = benchmarks[BenchmarkIdx];
+        if (benchmark instanceof ParallelBenchmark) { ((ParallelBenchmark) benchmark).setThreads(WorkerThreads); }
+        return benchmark;
+    }
+}
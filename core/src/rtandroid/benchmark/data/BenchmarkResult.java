@@ -0,0 +1,309 @@
+package rtandroid.benchmark.data;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import rtandroid.benchmark.benchmarks.Benchmark;
+import rtandroid.benchmark.benchmarks.RatedBenchmark;
+
+/**
+ * Stores the result of a benchmark.
+ * All values and histograms are stored in nanoseconds.
+ */
+public class BenchmarkResult
+{
+    public enum Kind
+    {
+        CYCLES,
+        WARMUP_CYCLES,
+        DROPPED_SAMPLES,
+        CALCULATION_MINIMUM,
+        CALCULATION_MAXIMUM,
+        CALCULATION_MEAN,
+        CALCULATION_DEVIATION,
+        CALCULATION_P50,
+        CALCULATION_P90,
+        CALCULATION_P99,
+        CALCULATION_P999,
+        CALCULATION_P9999,
+        CALCULATION_WORST_INTERVAL_P99,
+        CALCULATION_GC_HITS,
+        CALCULATION_GC_MAXIMUM,
+        SLEEP_MINIMUM,
+        SLEEP_MAXIMUM,
+        SLEEP_MEAN,
+        SLEEP_DEVIATION,
+        SLEEP_P50,
+        SLEEP_P90,
+        SLEEP_P99,
+        SLEEP_P999,
+        SLEEP_P9999,
+        SLEEP_WORST_INTERVAL_P99,
+        SLEEP_DEADLINE_MISSES,
+        SLEEP_OVERRUNS,
+        SLEEP_GC_HITS,
+        SLEEP_GC_MAXIMUM,
+    }
+
+    // The only sleep values stored by versions without a time unit
+    private static final Set<Kind> LEGACY_MICROSECOND_KINDS = EnumSet.of(Kind.SLEEP_MINIMUM, Kind.SLEEP_MAXIMUM, Kind.SLEEP_MEAN, Kind.SLEEP_DEVIATION);
+
+    private final String mName;
+    private final Map<String, Map<Kind, Long>> mResults = new LinkedHashMap<>();
+    // Not final as results of older versions are restored by Gson without these fields
+    private Map<String, long[]> mCalcHistograms = new LinkedHashMap<>();
+    private Map<String, long[]> mSleepHistograms = new LinkedHashMap<>();
+    private TimeUnit mTimeUnit = TimeUnit.NANOSECONDS;
+    private Map<String, String> mWaitStrategies = new LinkedHashMap<>();
+    private Map<String, String> mIdleBaselines = new LinkedHashMap<>();
+    private Map<String, String> mStopReasons = new LinkedHashMap<>();
+    private Map<String, String> mRates = new LinkedHashMap<>();
+
+    public BenchmarkResult(String name)
+    {
+        mName = name;
+    }
+
+    /**
+     * Stores the values of a test case, a repeated run of the same case replaces the previous one.
+     */
+    public void addResult(String testCase, Map<Kind, Long> result)
+    {
+        upgradeTimeUnit();
+        mResults.put(testCase, result);
+    }
+
+    /**
+     * Adds the analysis of a test case, measured by one collector per thread.
+     * @param idleCollectors Measurement of the idle system for test cases with stress loads, may be null.
+     */
+    public void addTestCase(BenchmarkConfiguration config, TestCase testCase, ResultCollector[] collectors, ResultCollector[] idleCollectors)
+    {
+        // Keep the idle measurement next to the one under load
+        if (idleCollectors != null)
+        {
+            String idleName = testCase.getName() + TestCase.IDLE_SUFFIX;
+            addAnalysis(idleName, config, testCase.getWaitStrategyName(config.Periodic), new ResultAnalyzer(config, idleCollectors));
+            setIdleBaseline(testCase.getName(), idleName);
+        }
+
+        addAnalysis(testCase.getName(), config, testCase.getWaitStrategyName(config.Periodic), new ResultAnalyzer(config, collectors));
+
+        // Parallel runs additionally keep the result of every thread
+        if (collectors.length > 1)
+        {
+            for (int thread = 0; thread < collectors.length; thread++)
+            {
+                String name = String.format(Locale.US, "%s (thread %d)", testCase.getName(), thread);
+                addAnalysis(name, config, testCase.getWaitStrategyName(config.Periodic), new ResultAnalyzer(config, collectors[thread]));
+            }
+        }
+    }
+
+    /**
+     * Adds the analysis of existing log files, e.g. read by the host runner.
+     */
+    public void addLogAnalysis(String testCase, String waitStrategy, ResultAnalyzer analyzer)
+    {
+        addAnalysis(testCase, analyzer.getConfiguration(), waitStrategy, analyzer);
+    }
+
+    private void addAnalysis(String name, BenchmarkConfiguration config, String waitStrategy, ResultAnalyzer analyzer)
+    {
+        Map<Kind, Long> results = analyzer.getResults();
+        addResult(name, results);
+        addHistograms(name, analyzer.getCalculationHistogram(), analyzer.getSleepHistogram());
+        setWaitStrategy(name, waitStrategy);
+        setStopReason(name, ResultReader.STOP_REASON_NAMES[analyzer.getStopReason()]);
+
+        Benchmark benchmark = config.getBenchmark();
+        Long mean = results.get(Kind.CALCULATION_MEAN);
+        if (benchmark instanceof RatedBenchmark && mean != null) { setRate(name, ((RatedBenchmark) benchmark).getRate(config.Parameter, mean)); }
+    }
+
+    /**
+     * Takes over all test cases of another result, e.g. delivered one by one during a run.
+     */
+    public void addAll(BenchmarkResult other)
+    {
+        upgradeTimeUnit();
+        other.upgradeTimeUnit();
+
+        mResults.putAll(other.mResults);
+        mCalcHistograms = merge(mCalcHistograms, other.mCalcHistograms);
+        mSleepHistograms = merge(mSleepHistograms, other.mSleepHistograms);
+        mWaitStrategies = merge(mWaitStrategies, other.mWaitStrategies);
+        mIdleBaselines = merge(mIdleBaselines, other.mIdleBaselines);
+        mStopReasons = merge(mStopReasons, other.mStopReasons);
+        mRates = merge(mRates, other.mRates);
+    }
+
+    private static <T> Map<String, T> merge(Map<String, T> target, Map<String, T> source)
+    {
+        if (source == null) { return target; }
+        if (target == null) { target = new LinkedHashMap<>(); }
+
+        target.putAll(source);
+        return target;
+    }
+
+    /**
+     * Converts results of older versions, which stored the sleep values in microseconds.
+     * Their calculation values were already measured in nanoseconds.
+     */
+    private void upgradeTimeUnit()
+    {
+        if (mTimeUnit != null) { return; }
+
+        for (Map<Kind, Long> caseResults : mResults.values())
+        {
+            for (Map.Entry<Kind, Long> entry : caseResults.entrySet())
+            {
+                if (LEGACY_MICROSECOND_KINDS.contains(entry.getKey())) { entry.setValue(TimeUnit.MICROSECONDS.toNanos(entry.getValue())); }
+            }
+        }
+
+        mTimeUnit = TimeUnit.NANOSECONDS;
+    }
+
+    /**
+     * Stores the histograms of a test case, replacing those of a previous run like {@link #addResult}.
+     */
+    public void addHistograms(String testCase, LatencyHistogram calcHistogram, LatencyHistogram sleepHistogram)
+    {
+        upgradeTimeUnit();
+        if (mCalcHistograms == null) { mCalcHistograms = new LinkedHashMap<>(); }
+        if (mSleepHistograms == null) { mSleepHistograms = new LinkedHashMap<>(); }
+
+        mCalcHistograms.put(testCase, calcHistogram.encode());
+        mSleepHistograms.put(testCase, sleepHistogram.encode());
+    }
+
+    /**
+     * Remembers how the test case waited for the next cycle.
+     */
+    public void setWaitStrategy(String testCase, String waitStrategy)
+    {
+        if (mWaitStrategies == null) { mWaitStrategies = new LinkedHashMap<>(); }
+        mWaitStrategies.put(testCase, waitStrategy);
+    }
+
+    /**
+     * @return Description of the wait strategy or null if not available.
+     */
+    public String getWaitStrategy(String testCase)
+    {
+        return (mWaitStrategies != null) ? mWaitStrategies.get(testCase) : null;
+    }
+
+    /**
+     * Remembers why the measurement of the test case ended.
+     */
+    public void setStopReason(String testCase, String stopReason)
+    {
+        if (mStopReasons == null) { mStopReasons = new LinkedHashMap<>(); }
+        mStopReasons.put(testCase, stopReason);
+    }
+
+    /**
+     * @return Description of the stop reason or null if not available.
+     */
+    public String getStopReason(String testCase)
+    {
+        return (mStopReasons != null) ? mStopReasons.get(testCase) : null;
+    }
+
+    /**
+     * Remembers the rate derived from the mean calculation time, e.g. the latency per memory access.
+     */
+    public void setRate(String testCase, String rate)
+    {
+        if (rate == null) { return; }
+        if (mRates == null) { mRates = new LinkedHashMap<>(); }
+        mRates.put(testCase, rate);
+    }
+
+    /**
+     * @return Rate of the benchmark or null if not available.
+     */
+    public String getRate(String testCase)
+    {
+        return (mRates != null) ? mRates.get(testCase) : null;
+    }
+
+    /**
+     * Links a test case measured under load to the measurement of the idle system.
+     */
+    public void setIdleBaseline(String testCase, String idleTestCase)
+    {
+        if (mIdleBaselines == null) { mIdleBaselines = new LinkedHashMap<>(); }
+        mIdleBaselines.put(testCase, idleTestCase);
+    }
+
+    /**
+     * @return Increase of the value under load compared to the idle system, for all test cases with stress loads.
+     */
+    public Map<String, Long> getLoadDelta(Kind kind)
+    {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        if (mIdleBaselines == null) { return deltas; }
+
+        Map<String, Long> values = getResult(kind);
+        for (Map.Entry<String, String> e : mIdleBaselines.entrySet())
+        {
+            Long loaded = values.get(e.getKey());
+            Long idle = values.get(e.getValue());
+            if (loaded != null && idle != null) { deltas.put(e.getKey(), loaded - idle); }
+        }
+
+        return deltas;
+    }
+
+    /**
+     * @return Histogram of the calculation times or null if not available.
+     */
+    public LatencyHistogram getCalculationHistogram(String testCase)
+    {
+        long[] encoded = (mCalcHistograms != null) ? mCalcHistograms.get(testCase) : null;
+        return (encoded != null) ? LatencyHistogram.decode(encoded) : null;
+    }
+
+    /**
+     * @return Histogram of the sleep latencies or null if not available.
+     */
+    public LatencyHistogram getSleepHistogram(String testCase)
+    {
+        upgradeTimeUnit();
+        long[] encoded = (mSleepHistograms != null) ? mSleepHistograms.get(testCase) : null;
+        return (encoded != null) ? LatencyHistogram.decode(encoded) : null;
+    }
+
+    public String getName()
+    {
+        return mName;
+    }
+
+    /**
+     * @return Values of all test cases in nanoseconds.
+     */
+    public Map<String, Long> getResult(Kind kind)
+    {
+        upgradeTimeUnit();
+        Map<String, Long> results = new LinkedHashMap<>();
+
+        for(Map.Entry<String, Map<Kind, Long>> e : mResults.entrySet())
+        {
+            String name = e.getKey();
+            Long value = e.getValue().get(kind);
+
+            // Results of older versions may not contain all kinds
+            if (value != null) { results.put(name, value); }
+        }
+
+        return results;
+    }
+}
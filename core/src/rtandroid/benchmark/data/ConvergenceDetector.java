@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+/**
+ * Decides when an adaptive run has collected enough samples.
+ *
+ * A run has converged once, for both the calculation and the sleep latency, the 95% confidence
+ * interval of the mean is within the tolerance and the p99 changed less than the tolerance over
+ * the last checks. Checks are spaced geometrically, so the tail gains enough new samples between them.
+ */
+public class ConvergenceDetector
+{
+    private static final long MIN_CYCLES = 10000; // at least 100 samples above the p99
+    private static final long MIN_CHECK_INTERVAL = 1000;
+    private static final double CHECK_GROWTH = 1.1;
+    private static final int STABLE_CHECKS = 3;
+    private static final double Z_95 = 1.96;
+    // Differences below this are within the timer resolution of most devices
+    private static final long RESOLUTION = 1000; // in ns
+
+    private final double mTolerance;
+    private final ResultStatistics mCalcValues = new ResultStatistics();
+    private final ResultStatistics mSleepValues = new ResultStatistics();
+
+    private long mNextCheck = MIN_CYCLES;
+    private long mLastCalcP99 = 0;
+    private long mLastSleepP99 = 0;
+    private int mStableChecks = -1; // the first check has nothing to compare with
+
+    /**
+     * @param tolerancePercent Allowed relative error of the mean and the p99.
+     */
+    public ConvergenceDetector(int tolerancePercent)
+    {
+        mTolerance = tolerancePercent / 100.0;
+    }
+
+    /**
+     * Adds a sample and checks for convergence from time to time.
+     * @return True once the statistics are stable.
+     */
+    public boolean add(long calcTime, long sleepLatency, LatencyHistogram calcHistogram, LatencyHistogram sleepHistogram)
+    {
+        mCalcValues.add(calcTime);
+        mSleepValues.add(sleepLatency);
+        if (mCalcValues.getCount() < mNextCheck) { return false; }
+
+        mNextCheck = Math.max(mNextCheck + MIN_CHECK_INTERVAL, (long) (mNextCheck * CHECK_GROWTH));
+
+        // The tail has to stay put over several checks in a row
+        long calcP99 = calcHistogram.getValueAtPercentile(99.0);
+        long sleepP99 = sleepHistogram.getValueAtPercentile(99.0);
+        boolean tailStable = isWithinTolerance(calcP99 - mLastCalcP99, mLastCalcP99) && isWithinTolerance(sleepP99 - mLastSleepP99, mLastSleepP99);
+        mStableChecks = (tailStable && mStableChecks >= 0) ? mStableChecks + 1 : 0;
+        mLastCalcP99 = calcP99;
+        mLastSleepP99 = sleepP99;
+
+        return mStableChecks >= STABLE_CHECKS && isMeanConverged(mCalcValues) && isMeanConverged(mSleepValues);
+    }
+
+    private boolean isMeanConverged(ResultStatistics values)
+    {
+        double halfWidth = Z_95 * values.getDev() / Math.sqrt(values.getCount());
+        return isWithinTolerance(halfWidth, values.getMean());
+    }
+
+    private boolean isWithinTolerance(double difference, double reference)
+    {
+        return Math.abs(difference) <= Math.max(mTolerance * Math.abs(reference), RESOLUTION);
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rtandroid.benchmark.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Fixed-memory latency histogram with log-linear buckets (similar to HdrHistogram).
+ *
+ * Values are grouped in buckets covering a power of two, each divided into linear sub-buckets,
+ * so the relative error stays below the configured number of significant digits over the whole
+ * range. Recording is O(1) and never allocates, independent of the number of samples.
+ */
+public class LatencyHistogram
+{
+    public static final long DEFAULT_LOWEST_VALUE = 1;
+    public static final long DEFAULT_HIGHEST_VALUE = 10L * 1000 * 1000 * 1000; // 10 s in ns
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    private static final int ENCODED_HEADER_SIZE = 7;
+
+    private final long mLowestValue;
+    private final long mHighestValue;
+    private final int mSignificantDigits;
+
+    private final int mUnitMagnitude;
+    private final int mSubBucketCount;
+    private final int mSubBucketHalfCount;
+    private final int mSubBucketHalfCountMagnitude;
+    private final long mSubBucketMask;
+    private final int mLeadingZeroCountBase;
+    private final int mClampedIndex;
+    private final long[] mCounts;
+
+    private long mTotalCount = 0;
+    private long mSum = 0;
+    private long mMin = Long.MAX_VALUE;
+    private long mMax = Long.MIN_VALUE;
+
+    public LatencyHistogram()
+    {
+        this(DEFAULT_LOWEST_VALUE, DEFAULT_HIGHEST_VALUE, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * @param lowestValue Smallest value which can be distinguished from zero.
+     * @param highestValue Largest value to track, larger ones are clamped.
+     * @param significantDigits Precision of the recorded values between 1 and 5.
+     */
+    public LatencyHistogram(long lowestValue, long highestValue, int significantDigits)
+    {
+        if (lowestValue < 1 || highestValue < 2 * lowestValue)
+        {
+            throw new IllegalArgumentException("Invalid value range for histogram!");
+        }
+        if (significantDigits < 1 || significantDigits > 5)
+        {
+            throw new IllegalArgumentException("Significant digits must be between 1 and 5!");
+        }
+
+        mLowestValue = lowestValue;
+        mHighestValue = highestValue;
+        mSignificantDigits = significantDigits;
+
+        // Enough linear sub-buckets to keep the requested precision
+        long largestSingleUnitValue = 2 * (long) Math.pow(10, significantDigits);
+        int subBucketCountMagnitude = (int) Math.ceil(Math.log(largestSingleUnitValue) / Math.log(2));
+        mSubBucketHalfCountMagnitude = Math.max(subBucketCountMagnitude, 1) - 1;
+        mUnitMagnitude = (int) Math.floor(Math.log(lowestValue) / Math.log(2));
+        mSubBucketCount = 1 << (mSubBucketHalfCountMagnitude + 1);
+        mSubBucketHalfCount = mSubBucketCount / 2;
+        mSubBucketMask = ((long) mSubBucketCount - 1) << mUnitMagnitude;
+        mLeadingZeroCountBase = 64 - mUnitMagnitude - mSubBucketHalfCountMagnitude - 1;
+
+        // Enough power of two buckets to cover the highest value
+        long smallestUntrackableValue = ((long) mSubBucketCount) << mUnitMagnitude;
+        int bucketCount = 1;
+        while (smallestUntrackableValue <= highestValue)
+        {
+            if (smallestUntrackableValue > Long.MAX_VALUE / 2) { bucketCount++; break; }
+            smallestUntrackableValue <<= 1;
+            bucketCount++;
+        }
+
+        mCounts = new long[(bucketCount + 1) * mSubBucketHalfCount];
+        mClampedIndex = getIndex(highestValue);
+    }
+
+    /**
+     * Creates an empty histogram with the same configuration.
+     */
+    public LatencyHistogram copyEmpty()
+    {
+        return new LatencyHistogram(mLowestValue, mHighestValue, mSignificantDigits);
+    }
+
+    /**
+     * Records a single value, values outside the range are clamped.
+     */
+    public void record(long value)
+    {
+        mTotalCount++;
+        mSum += value;
+        if (value < mMin) { mMin = value; }
+        if (value > mMax) { mMax = value; }
+
+        long clamped = Math.max(0, Math.min(value, mHighestValue));
+        mCounts[getIndex(clamped)]++;
+    }
+
+    private int getIndex(long value)
+    {
+        int bucketIndex = mLeadingZeroCountBase - Long.numberOfLeadingZeros(value | mSubBucketMask);
+        int subBucketIndex = (int) (value >>> (bucketIndex + mUnitMagnitude));
+        return ((bucketIndex + 1) << mSubBucketHalfCountMagnitude) + (subBucketIndex - mSubBucketHalfCount);
+    }
+
+    /**
+     * @return Largest value which is recorded into the same bucket as the given index.
+     */
+    private long getHighestValueAt(int index)
+    {
+        int bucketIndex = (index >> mSubBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (mSubBucketHalfCount - 1)) + mSubBucketHalfCount;
+        if (bucketIndex < 0)
+        {
+            subBucketIndex -= mSubBucketHalfCount;
+            bucketIndex = 0;
+        }
+
+        long lowestValue = ((long) subBucketIndex) << (bucketIndex + mUnitMagnitude);
+        long rangeSize = 1L << (bucketIndex + mUnitMagnitude);
+        return lowestValue + rangeSize - 1;
+    }
+
+    /**
+     * Adds all values of another histogram with the same configuration.
+     */
+    public void add(LatencyHistogram other)
+    {
+        if (mLowestValue != other.mLowestValue || mHighestValue != other.mHighestValue || mSignificantDigits != other.mSignificantDigits)
+        {
+            throw new IllegalArgumentException("Histograms with different configurations can't be merged!");
+        }
+
+        for (int i = 0; i < mCounts.length; i++) { mCounts[i] += other.mCounts[i]; }
+
+        mTotalCount += other.mTotalCount;
+        mSum += other.mSum;
+        mMin = Math.min(mMin, other.mMin);
+        mMax = Math.max(mMax, other.mMax);
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < mCounts.length; i++) { mCounts[i] = 0; }
+
+        mTotalCount = 0;
+        mSum = 0;
+        mMin = Long.MAX_VALUE;
+        mMax = Long.MIN_VALUE;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100, e.g. 99.9
+     * @return Value below or equal to which the given percentage of all values were recorded.
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        if (mTotalCount == 0) { return 0; }
+        if (percentile >= 100.0) { return getMax(); }
+
+        long countAtPercentile = (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * mTotalCount);
+        countAtPercentile = Math.max(countAtPercentile, 1);
+
+        long count = 0;
+        for (int i = 0; i < mCounts.length; i++)
+        {
+            count += mCounts[i];
+            if (count >= countAtPercentile)
+            {
+                // Values beyond the range are clamped into the top bucket, only their maximum is known
+                if (i == mClampedIndex) { return getMax(); }
+
+                long value = getHighestValueAt(i);
+                return Math.max(getMin(), Math.min(value, getMax()));
+            }
+        }
+
+        return getMax();
+    }
+
+    public long getHighestValue()
+    {
+        return mHighestValue;
+    }
+
+    public long getTotalCount()
+    {
+        return mTotalCount;
+    }
+
+    public long getMin()
+    {
+        return (mTotalCount > 0) ? mMin : 0;
+    }
+
+    public long getMax()
+    {
+        return (mTotalCount > 0) ? mMax : 0;
+    }
+
+    public double getMean()
+    {
+        return (mTotalCount > 0) ? (double) mSum / mTotalCount : 0.0;
+    }
+
+    //
+    // Serialization
+    //
+
+    /**
+     * @return Compact representation with the configuration, the totals and all non-empty buckets.
+     */
+    public long[] encode()
+    {
+        int used = 0;
+        for (long count : mCounts) { if (count != 0) { used++; } }
+
+        long[] encoded = new long[ENCODED_HEADER_SIZE + 2 * used];
+        encoded[0] = mLowestValue;
+        encoded[1] = mHighestValue;
+        encoded[2] = mSignificantDigits;
+        encoded[3] = mTotalCount;
+        encoded[4] = mSum;
+        encoded[5] = mMin;
+        encoded[6] = mMax;
+
+        int pos = ENCODED_HEADER_SIZE;
+        for (int i = 0; i < mCounts.length; i++)
+        {
+            if (mCounts[i] == 0) { continue; }
+            encoded[pos++] = i;
+            encoded[pos++] = mCounts[i];
+        }
+
+        return encoded;
+    }
+
+    /**
+     * @return Histogram restored from the output of {@link #encode()}.
+     */
+    public static LatencyHistogram decode(long[] encoded)
+    {
+        if (encoded == null || encoded.length < ENCODED_HEADER_SIZE || (encoded.length - ENCODED_HEADER_SIZE) % 2 != 0)
+        {
+            throw new IllegalArgumentException("Invalid encoded histogram!");
+        }
+
+        LatencyHistogram histogram = new LatencyHistogram(encoded[0], encoded[1], (int) encoded[2]);
+        histogram.mTotalCount = encoded[3];
+        histogram.mSum = encoded[4];
+        histogram.mMin = encoded[5];
+        histogram.mMax = encoded[6];
+
+        for (int pos = ENCODED_HEADER_SIZE; pos < encoded.length; pos += 2)
+        {
+            histogram.mCounts[(int) encoded[pos]] = encoded[pos + 1];
+        }
+
+        return histogram;
+    }
+
+    public void write(DataOutputStream out) throws IOException
+    {
+        long[] encoded = encode();
+        out.writeInt(encoded.length);
+        for (long value : encoded) { out.writeLong(value); }
+    }
+
+    public static LatencyHistogram read(DataInputStream in) throws IOException
+    {
+        long[] encoded = new long[in.readInt()];
+        for (int i = 0; i < encoded.length; i++) { encoded[i] = in.readLong(); }
+        return decode(encoded);
+    }
+}
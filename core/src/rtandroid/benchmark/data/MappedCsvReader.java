@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.data;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Parses CSV result files directly from memory-mapped windows of the file.
+ * Numbers are decoded from the raw bytes, so no strings are created while reading.
+ *
+ * Files written by older versions have a header without unit suffix and store the
+ * sleep time in microseconds, which is converted to nanoseconds here.
+ */
+public class MappedCsvReader implements SampleReader
+{
+    private static final long WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final byte[] LEGACY_HEADER = "calculationTime;sleepTime".getBytes();
+
+    private static final int FIELD_SEPARATOR = 0;
+    private static final int FIELD_LINE_END = 1;
+    private static final int FIELD_BUFFER_END = 2;
+
+    private static final int LINE_VALID = 0;
+    private static final int LINE_INVALID = 1;
+    private static final int LINE_INCOMPLETE = 2;
+    private static final int LINE_END = 3;
+
+    private final RandomAccessFile mFile;
+    private final FileChannel mChannel;
+    private final long mFileSize;
+    private final long mWindowSize;
+    private final long mSleepTimeScale;
+
+    private MappedByteBuffer mBuffer;
+    private long mWindowStart;
+    private boolean mLastWindow;
+
+    private long mFieldValue;
+    private boolean mFieldValid;
+
+    private long mCalcTime;
+    private long mSleepTime;
+
+    public MappedCsvReader(String fileName) throws IOException
+    {
+        this(fileName, WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize Bytes mapped at once, every line has to fit into a single window.
+     */
+    MappedCsvReader(String fileName, long windowSize) throws IOException
+    {
+        mFile = new RandomAccessFile(fileName, "r");
+        mChannel = mFile.getChannel();
+        mFileSize = mChannel.size();
+        mWindowSize = windowSize;
+
+        mapWindow(0);
+        mSleepTimeScale = isLegacyHeader() ? 1000 : 1;
+    }
+
+    private boolean isLegacyHeader()
+    {
+        if (mBuffer.remaining() <= LEGACY_HEADER.length) { return false; }
+
+        for (int i = 0; i < LEGACY_HEADER.length; i++)
+        {
+            if (mBuffer.get(i) != LEGACY_HEADER[i]) { return false; }
+        }
+
+        // The current header continues with a unit suffix
+        byte next = mBuffer.get(LEGACY_HEADER.length);
+        return (next == '\n' || next == '\r' || next == ';');
+    }
+
+    private void mapWindow(long start) throws IOException
+    {
+        long size = Math.min(mWindowSize, mFileSize - start);
+        mBuffer = mChannel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        mWindowStart = start;
+        mLastWindow = (start + size >= mFileSize);
+    }
+
+    @Override
+    public boolean next() throws IOException
+    {
+        while (true)
+        {
+            int lineStart = mBuffer.position();
+            switch (parseLine())
+            {
+                case LINE_VALID:
+                    return true;
+
+                case LINE_END:
+                    return false;
+
+                case LINE_INCOMPLETE:
+                    // Continue with a window starting at the beginning of this line
+                    if (lineStart == 0) { throw new IOException("Line exceeds the mapping window"); }
+                    mapWindow(mWindowStart + lineStart);
+                    break;
+
+                default:
+                    // Skip headers and garbage
+                    break;
+            }
+        }
+    }
+
+    private int parseLine()
+    {
+        if (!mBuffer.hasRemaining()) { return mLastWindow ? LINE_END : LINE_INCOMPLETE; }
+
+        // Calculation time
+        int terminator = parseField();
+        if (terminator == FIELD_BUFFER_END && !mLastWindow) { return LINE_INCOMPLETE; }
+        if (terminator != FIELD_SEPARATOR) { return LINE_INVALID; }
+
+        boolean valid = mFieldValid;
+        long calcTime = mFieldValue;
+
+        // Sleep time
+        terminator = parseField();
+        if (terminator == FIELD_BUFFER_END && !mLastWindow) { return LINE_INCOMPLETE; }
+        if (terminator == FIELD_SEPARATOR && !skipLine()) { return LINE_INCOMPLETE; }
+
+        if (!valid || !mFieldValid) { return LINE_INVALID; }
+
+        mCalcTime = calcTime;
+        mSleepTime = mFieldValue * mSleepTimeScale;
+        return LINE_VALID;
+    }
+
+    private int parseField()
+    {
+        long value = 0;
+        boolean digits = false;
+        boolean negative = false;
+        boolean valid = true;
+        int terminator = FIELD_BUFFER_END;
+
+        while (mBuffer.hasRemaining())
+        {
+            byte b = mBuffer.get();
+            if (b >= '0' && b <= '9')
+            {
+                value = 10 * value + (b - '0');
+                digits = true;
+            }
+            else if (b == ';') { terminator = FIELD_SEPARATOR; break; }
+            else if (b == '\n') { terminator = FIELD_LINE_END; break; }
+            else if (b == '-' && !digits && !negative) { negative = true; }
+            else if (b != '\r' && b != ' ') { valid = false; }
+        }
+
+        mFieldValue = negative ? -value : value;
+        mFieldValid = valid && digits;
+        return terminator;
+    }
+
+    /**
+     * @return False if the end of the window was reached before the end of the line.
+     */
+    private boolean skipLine()
+    {
+        while (mBuffer.hasRemaining())
+        {
+            if (mBuffer.get() == '\n') { return true; }
+        }
+
+        return mLastWindow;
+    }
+
+    @Override
+    public long getCalculationTime()
+    {
+        return mCalcTime;
+    }
+
+    @Override
+    public long getSleepTime()
+    {
+        return mSleepTime;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        mChannel.close();
+        mFile.close();
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import rtandroid.benchmark.benchmarks.BenchmarkManager;
+import rtandroid.benchmark.data.BenchmarkResult.Kind;
+
+/**
+ * Evaluates data of a test case and provides statistical information.
+ * All samples and results are handled in nanoseconds. Logs of parallel threads are combined.
+ */
+public class ResultAnalyzer
+{
+    private static final double[] PERCENTILES = { 50.0, 90.0, 99.0, 99.9, 99.99 };
+    private static final Kind[] CALCULATION_PERCENTILES = { Kind.CALCULATION_P50, Kind.CALCULATION_P90, Kind.CALCULATION_P99, Kind.CALCULATION_P999, Kind.CALCULATION_P9999 };
+    private static final Kind[] SLEEP_PERCENTILES = { Kind.SLEEP_P50, Kind.SLEEP_P90, Kind.SLEEP_P99, Kind.SLEEP_P999, Kind.SLEEP_P9999 };
+    // Parallel benchmarks append their thread count to the name, e.g. Matrix-Tiled-Double-4Threads
+    private static final Pattern PARALLEL_NAME = Pattern.compile("(.+)-(\\d+)Threads");
+
+    private final BenchmarkConfiguration mConfig;
+    private final ResultCollector mCollector;
+    private final Map<Kind, Long> mResult = new HashMap<>(Kind.values().length);
+
+    /**
+     * Reads and combines the given log files, e.g. of parallel threads.
+     * Binary logs provide the benchmark, parameter, sleep time and schedule in their header,
+     * CSV files take them from the given configuration.
+     */
+    public ResultAnalyzer(BenchmarkConfiguration config, String... fileNames) throws IOException
+    {
+        this(readConfiguration(config, fileNames[0]), readCollectors(config, fileNames));
+    }
+
+    /**
+     * Combines the results collected during the measurement, the collectors are not modified.
+     */
+    public ResultAnalyzer(BenchmarkConfiguration config, ResultCollector... collectors)
+    {
+        mConfig = config;
+        mCollector = new ResultCollector(config, false);
+        for (ResultCollector collector : collectors) { mCollector.add(collector); }
+
+        evaluate();
+    }
+
+    private void evaluate()
+    {
+        ResultStatistics calcValues = mCollector.getCalculationStatistics();
+        ResultStatistics sleepValues = mCollector.getSleepStatistics();
+
+        mResult.put(Kind.CYCLES, calcValues.getCount());
+        if (mCollector.getWarmupCycles() != ResultReader.UNKNOWN_WARMUP_CYCLES) { mResult.put(Kind.WARMUP_CYCLES, (long) mCollector.getWarmupCycles()); }
+        mResult.put(Kind.DROPPED_SAMPLES, mCollector.getDroppedSamples());
+
+        mResult.put(Kind.CALCULATION_MINIMUM,   calcValues.getMin());
+        mResult.put(Kind.CALCULATION_MEAN,      Math.round(calcValues.getMean()));
+        mResult.put(Kind.CALCULATION_MAXIMUM,   calcValues.getMax());
+        mResult.put(Kind.CALCULATION_DEVIATION, Math.round(calcValues.getDev()));
+
+        mResult.put(Kind.SLEEP_MINIMUM,   sleepValues.getMin());
+        mResult.put(Kind.SLEEP_MEAN,      Math.round(sleepValues.getMean()));
+        mResult.put(Kind.SLEEP_MAXIMUM,   sleepValues.getMax());
+        mResult.put(Kind.SLEEP_DEVIATION, Math.round(sleepValues.getDev()));
+
+        if (mCollector.isPeriodic())
+        {
+            mResult.put(Kind.SLEEP_DEADLINE_MISSES, mCollector.getDeadlineMisses());
+            mResult.put(Kind.SLEEP_OVERRUNS, mCollector.getOverruns());
+        }
+
+        putPercentiles(mCollector.getCalculationHistogram(), CALCULATION_PERCENTILES);
+        putPercentiles(mCollector.getSleepHistogram(), SLEEP_PERCENTILES);
+
+        // Only soak runs show whether latency spikes are clustered
+        if (mCollector.getSleepWorstIntervalP99() != ResultCollector.NO_VALUE)
+        {
+            mResult.put(Kind.CALCULATION_WORST_INTERVAL_P99, mCollector.getCalculationWorstIntervalP99());
+            mResult.put(Kind.SLEEP_WORST_INTERVAL_P99, mCollector.getSleepWorstIntervalP99());
+        }
+
+        // Garbage collections are only seen by live measurements, not in log files
+        if (mCollector.isGcTracked())
+        {
+            mResult.put(Kind.CALCULATION_GC_HITS, mCollector.getCalculationGcHits());
+            mResult.put(Kind.CALCULATION_GC_MAXIMUM, mCollector.getCalculationGcMaximum());
+            mResult.put(Kind.SLEEP_GC_HITS, mCollector.getSleepGcHits());
+            mResult.put(Kind.SLEEP_GC_MAXIMUM, mCollector.getSleepGcMaximum());
+        }
+    }
+
+    /**
+     * @return Configuration of the run which wrote the given log file.
+     */
+    private static BenchmarkConfiguration readConfiguration(BenchmarkConfiguration config, String fileName) throws IOException
+    {
+        if (fileName.endsWith(ResultReader.CSV_EXTENSION)) { return config; }
+
+        BenchmarkConfiguration fileConfig = new BenchmarkConfiguration(config);
+        ResultReader reader = new ResultReader(fileName);
+        try
+        {
+            String benchmarkName = reader.getBenchmarkName();
+            int workerThreads = 1;
+            Matcher parallel = PARALLEL_NAME.matcher(benchmarkName);
+            if (parallel.matches())
+            {
+                benchmarkName = parallel.group(1);
+                workerThreads = Integer.parseInt(parallel.group(2));
+            }
+
+            int benchmarkIdx = BenchmarkManager.findBenchmark(benchmarkName);
+            if (benchmarkIdx != BenchmarkManager.NO_BENCHMARK)
+            {
+                fileConfig.BenchmarkIdx = benchmarkIdx;
+                fileConfig.WorkerThreads = workerThreads;
+            }
+            fileConfig.Parameter = reader.getParameter();
+            fileConfig.SleepUs = reader.getSleep();
+            fileConfig.Cycles = reader.getCycles();
+            fileConfig.Periodic = reader.isPeriodic();
+        }
+        finally { reader.close(); }
+
+        return fileConfig;
+    }
+
+    private static ResultCollector[] readCollectors(BenchmarkConfiguration config, String... fileNames) throws IOException
+    {
+        ResultCollector[] collectors = new ResultCollector[fileNames.length];
+        for (int i = 0; i < fileNames.length; i++) { collectors[i] = readCollector(readConfiguration(config, fileNames[i]), fileNames[i]); }
+        return collectors;
+    }
+
+    /**
+     * @return Collector filled with all samples and additional files of the given log file.
+     */
+    private static ResultCollector readCollector(BenchmarkConfiguration config, String fileName) throws IOException
+    {
+        // Prefer the histograms recorded during the run
+        LatencyHistogram[] histograms = readHistograms(fileName);
+        ResultCollector collector = new ResultCollector(config, histograms == null);
+        if (histograms != null)
+        {
+            collector.getCalculationHistogram().add(histograms[0]);
+            collector.getSleepHistogram().add(histograms[1]);
+        }
+
+        long sleepNs = config.SleepUs * 1000L;
+        SampleReader reader = openReader(fileName);
+        try
+        {
+            if (reader instanceof ResultReader)
+            {
+                ResultReader resultReader = (ResultReader) reader;
+                collector.setStopReason(resultReader.getStopReason());
+                collector.setWarmupCycles(resultReader.getWarmupCycles());
+                collector.setDroppedSamples(resultReader.getDroppedSamples());
+            }
+
+            while (reader.next()) { collector.add(reader.getCalculationTime(), reader.getSleepTime() - sleepNs); }
+        }
+        finally { reader.close(); }
+
+        readSnapshots(fileName, collector);
+        return collector;
+    }
+
+    /**
+     * @return Calculation and sleep histogram stored next to the result file or null if not available.
+     */
+    private static LatencyHistogram[] readHistograms(String fileName) throws IOException
+    {
+        File file = new File(ResultReader.getHistogramFileName(fileName));
+        if (!file.exists()) { return null; }
+
+        LatencyHistogram calcHistogram;
+        LatencyHistogram sleepHistogram;
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try
+        {
+            calcHistogram = LatencyHistogram.read(in);
+            sleepHistogram = LatencyHistogram.read(in);
+        }
+        finally { in.close(); }
+
+        return new LatencyHistogram[] { calcHistogram, sleepHistogram };
+    }
+
+    private static void readSnapshots(String fileName, ResultCollector collector) throws IOException
+    {
+        String snapshotFileName = ResultReader.getSnapshotFileName(fileName);
+        if (!new File(snapshotFileName).exists()) { return; }
+
+        SnapshotLog log = new SnapshotLog(snapshotFileName);
+        try
+        {
+            while (log.next()) { collector.addInterval(log.getCalculationHistogram(), log.getSleepHistogram()); }
+        }
+        finally { log.close(); }
+    }
+
+    private void putPercentiles(LatencyHistogram histogram, Kind[] kinds)
+    {
+        for (int i = 0; i < kinds.length; i++)
+        {
+            mResult.put(kinds[i], histogram.getValueAtPercentile(PERCENTILES[i]));
+        }
+    }
+
+    /**
+     * @return Empty histogram for calculation times or sleep latencies.
+     */
+    public static LatencyHistogram createHistogram()
+    {
+        return new LatencyHistogram();
+    }
+
+    /**
+     * @return Reader matching the format of the given result file.
+     */
+    public static SampleReader openReader(String fileName) throws IOException
+    {
+        if (fileName.endsWith(ResultReader.CSV_EXTENSION)) { return new MappedCsvReader(fileName); }
+        return new ResultReader(fileName);
+    }
+
+    /**
+     * @return Get results in nanoseconds.
+     */
+    public Map<Kind, Long> getResults()
+    {
+        if (mResult.isEmpty())
+        {
+            throw new IllegalStateException("No statistics are available before evaluation!");
+        }
+
+        return mResult;
+    }
+
+    /**
+     * @return Configuration of the analysed run, taken from the log header if available.
+     */
+    public BenchmarkConfiguration getConfiguration()
+    {
+        return mConfig;
+    }
+
+    /**
+     * @return Why the measurement ended, one of the STOP constants of {@link ResultReader}.
+     */
+    public int getStopReason()
+    {
+        return mCollector.getStopReason();
+    }
+
+    public LatencyHistogram getCalculationHistogram()
+    {
+        return mCollector.getCalculationHistogram();
+    }
+
+    public LatencyHistogram getSleepHistogram()
+    {
+        return mCollector.getSleepHistogram();
+    }
+}
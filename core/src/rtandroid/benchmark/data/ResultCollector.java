@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+/**
+ * Accumulates everything needed for the analysis of a run, sample by sample.
+ * It is filled live by the measuring thread or later from a log file, the collectors
+ * of parallel threads are merged. All values are handled in nanoseconds.
+ */
+public class ResultCollector
+{
+    public static final long NO_VALUE = -1;
+
+    private final long mSleepNs;
+    private final boolean mPeriodic;
+    private final boolean mRecordHistograms;
+
+    private final ResultStatistics mCalcValues = new ResultStatistics();
+    private final ResultStatistics mSleepValues = new ResultStatistics();
+    private final LatencyHistogram mCalcHistogram = ResultAnalyzer.createHistogram();
+    private final LatencyHistogram mSleepHistogram = ResultAnalyzer.createHistogram();
+
+    private long mDeadlineMisses = 0;
+    private long mOverruns = 0;
+    private int mStopReason = ResultReader.STOP_CYCLES;
+    private int mWarmupCycles = ResultReader.UNKNOWN_WARMUP_CYCLES;
+    private long mDroppedSamples = 0;
+    private long mCalcWorstIntervalP99 = NO_VALUE;
+    private long mSleepWorstIntervalP99 = NO_VALUE;
+    // Cycles during which a garbage collection finished, only known for live measurements
+    private long mCalcGcHits = NO_VALUE;
+    private long mSleepGcHits = NO_VALUE;
+    private long mCalcGcMax = NO_VALUE;
+    private long mSleepGcMax = NO_VALUE;
+
+    /**
+     * @param recordHistograms False if the histograms are filled separately, e.g. from snapshots.
+     */
+    public ResultCollector(BenchmarkConfiguration config, boolean recordHistograms)
+    {
+        mSleepNs = config.SleepUs * 1000L;
+        mPeriodic = config.Periodic;
+        mRecordHistograms = recordHistograms;
+    }
+
+    /**
+     * Adds a single cycle.
+     * @param sleepLatency Time slept beyond the configured sleep time.
+     */
+    public void add(long calcTime, long sleepLatency)
+    {
+        mCalcValues.add(calcTime);
+        mSleepValues.add(sleepLatency);
+
+        // In periodic mode the sleep time is the wake-up lateness, the cycle has to finish within the period
+        long cycleTime = sleepLatency + calcTime;
+        if (mPeriodic && cycleTime > mSleepNs)
+        {
+            mDeadlineMisses++;
+            mOverruns += cycleTime / mSleepNs;
+        }
+
+        if (mRecordHistograms)
+        {
+            mCalcHistogram.record(calcTime);
+            mSleepHistogram.record(sleepLatency);
+        }
+    }
+
+    /**
+     * Merges the results of another run, e.g. of a parallel thread.
+     */
+    public void add(ResultCollector other)
+    {
+        mCalcValues.add(other.mCalcValues);
+        mSleepValues.add(other.mSleepValues);
+        mCalcHistogram.add(other.mCalcHistogram);
+        mSleepHistogram.add(other.mSleepHistogram);
+        mDeadlineMisses += other.mDeadlineMisses;
+        mOverruns += other.mOverruns;
+
+        // Threads stop independently, keep the first reason besides the cycle count
+        if (mStopReason == ResultReader.STOP_CYCLES) { mStopReason = other.mStopReason; }
+
+        // Parallel threads start together, so the slowest warmup counts
+        mWarmupCycles = Math.max(mWarmupCycles, other.mWarmupCycles);
+        mDroppedSamples += other.mDroppedSamples;
+        mCalcWorstIntervalP99 = Math.max(mCalcWorstIntervalP99, other.mCalcWorstIntervalP99);
+        mSleepWorstIntervalP99 = Math.max(mSleepWorstIntervalP99, other.mSleepWorstIntervalP99);
+
+        if (other.isGcTracked())
+        {
+            if (!isGcTracked()) { startGcTracking(); }
+            mCalcGcHits += other.mCalcGcHits;
+            mSleepGcHits += other.mSleepGcHits;
+            mCalcGcMax = Math.max(mCalcGcMax, other.mCalcGcMax);
+            mSleepGcMax = Math.max(mSleepGcMax, other.mSleepGcMax);
+        }
+    }
+
+    public ResultStatistics getCalculationStatistics()
+    {
+        return mCalcValues;
+    }
+
+    public ResultStatistics getSleepStatistics()
+    {
+        return mSleepValues;
+    }
+
+    public LatencyHistogram getCalculationHistogram()
+    {
+        return mCalcHistogram;
+    }
+
+    public LatencyHistogram getSleepHistogram()
+    {
+        return mSleepHistogram;
+    }
+
+    public boolean isPeriodic()
+    {
+        return mPeriodic;
+    }
+
+    public long getDeadlineMisses()
+    {
+        return mDeadlineMisses;
+    }
+
+    public long getOverruns()
+    {
+        return mOverruns;
+    }
+
+    /**
+     * @return Why the measurement ended, one of the STOP constants of {@link ResultReader}.
+     */
+    public int getStopReason()
+    {
+        return mStopReason;
+    }
+
+    public void setStopReason(int stopReason)
+    {
+        mStopReason = stopReason;
+    }
+
+    /**
+     * @return Iterations before the measurement or {@link ResultReader#UNKNOWN_WARMUP_CYCLES}.
+     */
+    public int getWarmupCycles()
+    {
+        return mWarmupCycles;
+    }
+
+    public void setWarmupCycles(int warmupCycles)
+    {
+        mWarmupCycles = warmupCycles;
+    }
+
+    /**
+     * @return Measured samples missing from the statistics, as the log writer dropped them.
+     */
+    public long getDroppedSamples()
+    {
+        return mDroppedSamples;
+    }
+
+    public void setDroppedSamples(long droppedSamples)
+    {
+        mDroppedSamples = droppedSamples;
+    }
+
+    /**
+     * @return Highest p99 of the calculation times of all snapshot intervals or {@link #NO_VALUE}.
+     */
+    public long getCalculationWorstIntervalP99()
+    {
+        return mCalcWorstIntervalP99;
+    }
+
+    /**
+     * @return Highest p99 of the sleep latencies of all snapshot intervals or {@link #NO_VALUE}.
+     */
+    public long getSleepWorstIntervalP99()
+    {
+        return mSleepWorstIntervalP99;
+    }
+
+    /**
+     * Starts counting the cycles hit by garbage collections, see {@link #addGcHit}.
+     */
+    public void startGcTracking()
+    {
+        mCalcGcHits = 0;
+        mSleepGcHits = 0;
+        mCalcGcMax = 0;
+        mSleepGcMax = 0;
+    }
+
+    public boolean isGcTracked()
+    {
+        return mCalcGcHits != NO_VALUE;
+    }
+
+    /**
+     * Marks a cycle during which a garbage collection finished.
+     * @param inCalculation True if the collection finished during the calculation.
+     * @param inSleep True if the collection finished during the sleep.
+     */
+    public void addGcHit(long calcTime, long sleepLatency, boolean inCalculation, boolean inSleep)
+    {
+        if (inCalculation)
+        {
+            mCalcGcHits++;
+            mCalcGcMax = Math.max(mCalcGcMax, calcTime);
+        }
+        if (inSleep)
+        {
+            mSleepGcHits++;
+            mSleepGcMax = Math.max(mSleepGcMax, sleepLatency);
+        }
+    }
+
+    /**
+     * @return Number of calculations during which a collection finished or {@link #NO_VALUE}.
+     */
+    public long getCalculationGcHits()
+    {
+        return mCalcGcHits;
+    }
+
+    /**
+     * @return Number of sleeps during which a collection finished or {@link #NO_VALUE}.
+     */
+    public long getSleepGcHits()
+    {
+        return mSleepGcHits;
+    }
+
+    /**
+     * @return Longest calculation hit by a collection or {@link #NO_VALUE}.
+     */
+    public long getCalculationGcMaximum()
+    {
+        return mCalcGcMax;
+    }
+
+    /**
+     * @return Highest sleep latency hit by a collection or {@link #NO_VALUE}.
+     */
+    public long getSleepGcMaximum()
+    {
+        return mSleepGcMax;
+    }
+
+    /**
+     * Takes the p99 of a snapshot interval into account.
+     */
+    public void addInterval(LatencyHistogram calcHistogram, LatencyHistogram sleepHistogram)
+    {
+        mCalcWorstIntervalP99 = Math.max(mCalcWorstIntervalP99, calcHistogram.getValueAtPercentile(99.0));
+        mSleepWorstIntervalP99 = Math.max(mSleepWorstIntervalP99, sleepHistogram.getValueAtPercentile(99.0));
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.data;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Streams the samples of a binary result log without allocating objects per sample.
+ *
+ * The file starts with a fixed header of {@link #HEADER_SIZE} bytes (all values little-endian):
+ * <pre>
+ *   0  magic "RTBL"
+ *   4  int  format version
+ *   8  int  header size
+ *  12  int  benchmark parameter
+ *  16  int  sleep time in microseconds
+ *  20  int  configured cycles
+ *  24  long number of samples
+ *  32  int  time unit of the samples ({@link #TIME_UNIT_NANOSECONDS})
+ *  36  int  flags ({@link #FLAG_PERIODIC}, {@link #FLAG_ADAPTIVE}, {@link #FLAG_SOAK}, wait strategy in bits 8 to 15, stop reason in bits 16 to 23)
+ *  40  char[32] benchmark name (UTF-8, zero padded)
+ *  72  char[48] test case name (UTF-8, zero padded)
+ * 120  int  samples dropped by the log writer, missing from the records
+ * 124  int  iterations until the warmup reached a steady state
+ * </pre>
+ * followed by records of two longs holding the calculation and the sleep time.
+ */
+public class ResultReader implements SampleReader
+{
+    public static final String FILE_EXTENSION = ".dat";
+    public static final String CSV_EXTENSION = ".csv";
+    public static final String HISTOGRAM_EXTENSION = ".hist";
+    public static final String SNAPSHOT_EXTENSION = ".snap";
+    public static final String CSV_HEADER = "calculationTimeNs;sleepTimeNs\n";
+
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 128;
+    public static final int RECORD_SIZE = 16;
+
+    public static final int TIME_UNIT_NANOSECONDS = 1;
+    public static final int FLAG_PERIODIC = 1;
+    public static final int FLAG_ADAPTIVE = 2;
+    public static final int FLAG_SOAK = 4;
+    public static final int WAIT_STRATEGY_SHIFT = 8;
+    public static final int STOP_REASON_SHIFT = 16;
+    public static final int UNKNOWN_WARMUP_CYCLES = -1;
+
+    // Reasons for the end of a measurement, written once it is done
+    public static final int STOP_CYCLES = 0;
+    public static final int STOP_CONVERGED = 1;
+    public static final int STOP_TIME_BUDGET = 2;
+    public static final int STOP_CANCELED = 3;
+    public static final int STOP_DURATION = 4;
+    public static final String[] STOP_REASON_NAMES = { "Cycle count reached", "Results converged", "Time budget exceeded", "Canceled", "Duration reached" };
+
+    private static final byte[] MAGIC = { 'R', 'T', 'B', 'L' };
+    private static final int TIME_UNIT_OFFSET = 32;
+    private static final int FLAGS_OFFSET = 36;
+    private static final int BENCHMARK_OFFSET = 40;
+    private static final int BENCHMARK_SIZE = 32;
+    private static final int TEST_CASE_OFFSET = 72;
+    private static final int TEST_CASE_SIZE = 48;
+    private static final int DROPPED_SAMPLES_OFFSET = 120;
+    private static final int WARMUP_CYCLES_OFFSET = 124;
+    private static final int BUFFER_SIZE = 4096 * RECORD_SIZE;
+
+    private final FileInputStream mStream;
+    private final FileChannel mChannel;
+    private final ByteBuffer mBuffer;
+
+    private final String mBenchmarkName;
+    private final String mTestCaseName;
+    private final int mParameter;
+    private final int mSleep;
+    private final int mCycles;
+    private final long mSampleCount;
+    private final int mFlags;
+    private final int mWarmupCycles;
+    private final int mDroppedSamples;
+
+    private long mCalcTime;
+    private long mSleepTime;
+
+    public ResultReader(String fileName) throws IOException
+    {
+        mStream = new FileInputStream(fileName);
+        mChannel = mStream.getChannel();
+        mBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Parse the fixed header
+        mBuffer.limit(HEADER_SIZE);
+        while (mBuffer.hasRemaining())
+        {
+            if (mChannel.read(mBuffer) < 0)
+            {
+                close();
+                throw new IOException("Result file is too short: " + fileName);
+            }
+        }
+        mBuffer.flip();
+
+        for (byte magic : MAGIC)
+        {
+            if (mBuffer.get() != magic)
+            {
+                close();
+                throw new IOException("Not a binary result file: " + fileName);
+            }
+        }
+
+        int version = mBuffer.getInt();
+        int headerSize = mBuffer.getInt();
+        if (version != VERSION || headerSize != HEADER_SIZE)
+        {
+            close();
+            throw new IOException("Unsupported result file version " + version);
+        }
+
+        mParameter = mBuffer.getInt();
+        mSleep = mBuffer.getInt();
+        mCycles = mBuffer.getInt();
+        mSampleCount = mBuffer.getLong();
+
+        int timeUnit = mBuffer.getInt(TIME_UNIT_OFFSET);
+        if (timeUnit != TIME_UNIT_NANOSECONDS)
+        {
+            close();
+            throw new IOException("Unsupported time unit " + timeUnit);
+        }
+
+        mFlags = mBuffer.getInt(FLAGS_OFFSET);
+        mBenchmarkName = readString(BENCHMARK_OFFSET, BENCHMARK_SIZE);
+        mTestCaseName = readString(TEST_CASE_OFFSET, TEST_CASE_SIZE);
+        mWarmupCycles = mBuffer.getInt(WARMUP_CYCLES_OFFSET);
+        mDroppedSamples = mBuffer.getInt(DROPPED_SAMPLES_OFFSET);
+
+        // Start streaming the records
+        mBuffer.clear();
+        mBuffer.flip();
+    }
+
+    private String readString(int offset, int size)
+    {
+        byte[] bytes = new byte[size];
+        mBuffer.position(offset);
+        mBuffer.get(bytes);
+
+        int length = 0;
+        while (length < size && bytes[length] != 0) { length++; }
+        return new String(bytes, 0, length, Charset.forName("UTF-8"));
+    }
+
+    @Override
+    public boolean next() throws IOException
+    {
+        if (mBuffer.remaining() < RECORD_SIZE)
+        {
+            // Refill the buffer, keeping partially read records
+            mBuffer.compact();
+            while (mBuffer.position() < RECORD_SIZE)
+            {
+                if (mChannel.read(mBuffer) < 0) { break; }
+            }
+            mBuffer.flip();
+            if (mBuffer.remaining() < RECORD_SIZE) { return false; }
+        }
+
+        mCalcTime = mBuffer.getLong();
+        mSleepTime = mBuffer.getLong();
+        return true;
+    }
+
+    @Override
+    public long getCalculationTime()
+    {
+        return mCalcTime;
+    }
+
+    @Override
+    public long getSleepTime()
+    {
+        return mSleepTime;
+    }
+
+    public String getBenchmarkName()
+    {
+        return mBenchmarkName;
+    }
+
+    public String getTestCaseName()
+    {
+        return mTestCaseName;
+    }
+
+    public int getParameter()
+    {
+        return mParameter;
+    }
+
+    /**
+     * @return Configured sleep time in microseconds.
+     */
+    public int getSleep()
+    {
+        return mSleep;
+    }
+
+    public int getCycles()
+    {
+        return mCycles;
+    }
+
+    /**
+     * @return True if the samples were recorded against absolute deadlines.
+     */
+    public boolean isPeriodic()
+    {
+        return (mFlags & FLAG_PERIODIC) != 0;
+    }
+
+    /**
+     * @return Wait strategy as defined in {@link TestCase}.
+     */
+    public int getWaitStrategy()
+    {
+        return (mFlags >> WAIT_STRATEGY_SHIFT) & 0xFF;
+    }
+
+    /**
+     * @return True if the run stopped as soon as the results were stable.
+     */
+    public boolean isAdaptive()
+    {
+        return (mFlags & FLAG_ADAPTIVE) != 0;
+    }
+
+    /**
+     * @return True if the run measured for a fixed time instead of a cycle count.
+     */
+    public boolean isSoak()
+    {
+        return (mFlags & FLAG_SOAK) != 0;
+    }
+
+    /**
+     * @return Why the measurement ended, one of the STOP constants.
+     */
+    public int getStopReason()
+    {
+        return (mFlags >> STOP_REASON_SHIFT) & 0xFF;
+    }
+
+    /**
+     * @return Iterations before the measurement.
+     */
+    public int getWarmupCycles()
+    {
+        return mWarmupCycles;
+    }
+
+    /**
+     * @return Samples which were measured but never written, e.g. due to slow I/O.
+     */
+    public int getDroppedSamples()
+    {
+        return mDroppedSamples;
+    }
+
+    /**
+     * @return Number of samples as stored in the header.
+     */
+    public long getSampleCount()
+    {
+        return mSampleCount;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        mChannel.close();
+        mStream.close();
+    }
+
+    /**
+     * Converts the remaining samples to the CSV format used by older versions.
+     * Both columns are written in nanoseconds.
+     */
+    public void exportCsv(String csvFileName) throws IOException
+    {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(csvFileName));
+        try
+        {
+            StringBuilder line = new StringBuilder();
+            writer.write(CSV_HEADER);
+            while (next())
+            {
+                line.setLength(0);
+                line.append(mCalcTime).append(';').append(mSleepTime).append(";\n");
+                writer.append(line);
+            }
+        }
+        finally { writer.close(); }
+    }
+
+    /**
+     * @return Name of the CSV file matching the given binary result file.
+     */
+    public static String getCsvFileName(String fileName)
+    {
+        return replaceExtension(fileName, CSV_EXTENSION);
+    }
+
+    /**
+     * @return Name of the histogram file matching the given result file.
+     */
+    public static String getHistogramFileName(String fileName)
+    {
+        return replaceExtension(fileName, HISTOGRAM_EXTENSION);
+    }
+
+    /**
+     * @return Name of the snapshot log matching the given result file.
+     */
+    public static String getSnapshotFileName(String fileName)
+    {
+        return replaceExtension(fileName, SNAPSHOT_EXTENSION);
+    }
+
+    private static String replaceExtension(String fileName, String extension)
+    {
+        if (fileName.endsWith(FILE_EXTENSION))
+        {
+            fileName = fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+        }
+        else if (fileName.endsWith(CSV_EXTENSION))
+        {
+            fileName = fileName.substring(0, fileName.length() - CSV_EXTENSION.length());
+        }
+
+        return fileName + extension;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.data;
+
+/**
+ * Single-pass statistics over a series of samples.
+ * Mean and variance are updated with Welford's algorithm, so no values have to be kept.
+ */
+public class ResultStatistics
+{
+    private long mCount = 0;
+    private long mSum = 0;
+    private long mMin = Long.MAX_VALUE;
+    private long mMax = Long.MIN_VALUE;
+    private double mMean = 0.0;
+    private double mSquaredDiffs = 0.0;
+
+    public void add(long value)
+    {
+        mCount++;
+        mSum += value;
+        if (value < mMin) { mMin = value; }
+        if (value > mMax) { mMax = value; }
+
+        double delta = value - mMean;
+        mMean += delta / mCount;
+        mSquaredDiffs += delta * (value - mMean);
+    }
+
+    /**
+     * Adds all values of another series, e.g. measured by a parallel thread.
+     */
+    public void add(ResultStatistics other)
+    {
+        if (other.mCount == 0) { return; }
+
+        // Combine the squared differences of both series (Chan et al.)
+        long count = mCount + other.mCount;
+        double delta = other.mMean - mMean;
+        mSquaredDiffs += other.mSquaredDiffs + delta * delta * mCount * other.mCount / count;
+        mMean += delta * other.mCount / count;
+        mCount = count;
+        mSum += other.mSum;
+        mMin = Math.min(mMin, other.mMin);
+        mMax = Math.max(mMax, other.mMax);
+    }
+
+    public long getCount()
+    {
+        return mCount;
+    }
+
+    public long getMin()
+    {
+        return (mCount > 0) ? mMin : 0;
+    }
+
+    public long getMax()
+    {
+        return (mCount > 0) ? mMax : 0;
+    }
+
+    public long getSum()
+    {
+        return mSum;
+    }
+
+    public double getMean()
+    {
+        return mMean;
+    }
+
+    /** Returns the sample variance */
+    public double getVar()
+    {
+        return (mCount > 0) ? mSquaredDiffs / mCount : 0.0;
+    }
+
+    /** Returns the sample standard deviation */
+    public double getDev()
+    {
+        double var = getVar();
+        return Math.sqrt(var);
+    }
+}
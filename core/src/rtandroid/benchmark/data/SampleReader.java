@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.data;
+
+import java.io.IOException;
+
+/**
+ * Interface for every reader providing the samples of a result file one after another.
+ */
+public interface SampleReader
+{
+    /**
+     * Advances to the next sample.
+     * @return False if there are no more samples.
+     */
+    boolean next() throws IOException;
+
+    /**
+     * @return Calculation time of the current sample.
+     */
+    long getCalculationTime();
+
+    /**
+     * @return Sleep time of the current sample.
+     */
+    long getSleepTime();
+
+    void close() throws IOException;
+}
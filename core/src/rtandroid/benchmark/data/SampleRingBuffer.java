@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rtandroid.benchmark.data;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer/single-consumer ring buffer for live samples.
+ *
+ * The records are stored in a direct buffer using the layout of the binary result log, so the
+ * memory can also be handed to native code. Writing never blocks or allocates: if the consumer
+ * falls behind, new samples are dropped and counted.
+ */
+public class SampleRingBuffer implements SampleReader
+{
+    private final ByteBuffer mBuffer;
+    private final int mCapacity;
+    private final int mMask;
+
+    private final AtomicLong mHead = new AtomicLong();
+    private final AtomicLong mTail = new AtomicLong();
+    private final AtomicLong mDropped = new AtomicLong();
+
+    // Only accessed by the producer
+    private long mProducerHead = 0;
+    private long mCachedTail = 0;
+
+    // Only accessed by the consumer
+    private long mConsumerTail = 0;
+    private long mCachedHead = 0;
+    private long mCalcTime;
+    private long mSleepTime;
+
+    /**
+     * @param capacity Number of samples, must be a power of two.
+     */
+    public SampleRingBuffer(int capacity)
+    {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+        {
+            throw new IllegalArgumentException("Capacity must be a power of two!");
+        }
+
+        mCapacity = capacity;
+        mMask = capacity - 1;
+        mBuffer = ByteBuffer.allocateDirect(capacity * ResultReader.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Adds a sample, must only be called from the producing thread.
+     * @return False if the buffer was full and the sample was dropped.
+     */
+    public boolean offer(long calcTime, long sleepTime)
+    {
+        long head = mProducerHead;
+        if (head - mCachedTail >= mCapacity)
+        {
+            mCachedTail = mTail.get();
+            if (head - mCachedTail >= mCapacity)
+            {
+                mDropped.lazySet(mDropped.get() + 1);
+                return false;
+            }
+        }
+
+        int offset = (int) (head & mMask) * ResultReader.RECORD_SIZE;
+        mBuffer.putLong(offset, calcTime);
+        mBuffer.putLong(offset + 8, sleepTime);
+
+        // Publish the record after it was written completely
+        mProducerHead = head + 1;
+        mHead.lazySet(mProducerHead);
+        return true;
+    }
+
+    /**
+     * Takes the oldest sample, must only be called from the consuming thread.
+     */
+    @Override
+    public boolean next()
+    {
+        long tail = mConsumerTail;
+        if (tail >= mCachedHead)
+        {
+            mCachedHead = mHead.get();
+            if (tail >= mCachedHead) { return false; }
+        }
+
+        int offset = (int) (tail & mMask) * ResultReader.RECORD_SIZE;
+        mCalcTime = mBuffer.getLong(offset);
+        mSleepTime = mBuffer.getLong(offset + 8);
+
+        // Release the slot for the producer
+        mConsumerTail = tail + 1;
+        mTail.lazySet(mConsumerTail);
+        return true;
+    }
+
+    @Override
+    public long getCalculationTime()
+    {
+        return mCalcTime;
+    }
+
+    @Override
+    public long getSleepTime()
+    {
+        return mSleepTime;
+    }
+
+    @Override
+    public void close()
+    {
+        // Nothing to release, the buffer is garbage collected
+    }
+
+    /**
+     * @return Number of samples which were written, including the dropped ones.
+     */
+    public long getProducedCount()
+    {
+        return mHead.get() + mDropped.get();
+    }
+
+    public long getDroppedCount()
+    {
+        return mDropped.get();
+    }
+
+    public int getCapacity()
+    {
+        return mCapacity;
+    }
+
+    /**
+     * @return Underlying direct buffer holding the records.
+     */
+    public ByteBuffer getBuffer()
+    {
+        return mBuffer;
+    }
+}
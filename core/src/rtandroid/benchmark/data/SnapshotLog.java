@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Reads the histogram snapshots taken at fixed intervals during soak runs.
+ *
+ * Each record holds the time since the start of the measurement at the end of the interval,
+ * followed by the calculation and the sleep latency histogram of that interval only.
+ */
+public class SnapshotLog
+{
+    private final DataInputStream mStream;
+
+    private long mElapsedTime;
+    private LatencyHistogram mCalcHistogram;
+    private LatencyHistogram mSleepHistogram;
+
+    public SnapshotLog(String fileName) throws IOException
+    {
+        mStream = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+    }
+
+    /**
+     * Appends the histograms of an interval.
+     * @param elapsedTime Time since the start of the measurement in nanoseconds.
+     */
+    public static void write(DataOutputStream out, long elapsedTime, LatencyHistogram calcHistogram, LatencyHistogram sleepHistogram) throws IOException
+    {
+        out.writeLong(elapsedTime);
+        calcHistogram.write(out);
+        sleepHistogram.write(out);
+    }
+
+    /**
+     * @return False if no more snapshots are available.
+     */
+    public boolean next() throws IOException
+    {
+        try { mElapsedTime = mStream.readLong(); }
+        catch (EOFException e) { return false; }
+
+        mCalcHistogram = LatencyHistogram.read(mStream);
+        mSleepHistogram = LatencyHistogram.read(mStream);
+        return true;
+    }
+
+    /**
+     * @return Time since the start of the measurement at the end of the interval in nanoseconds.
+     */
+    public long getElapsedTime()
+    {
+        return mElapsedTime;
+    }
+
+    public LatencyHistogram getCalculationHistogram()
+    {
+        return mCalcHistogram;
+    }
+
+    public LatencyHistogram getSleepHistogram()
+    {
+        return mSleepHistogram;
+    }
+
+    public void close() throws IOException
+    {
+        mStream.close();
+    }
+}
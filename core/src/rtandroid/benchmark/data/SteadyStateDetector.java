@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+/**
+ * Decides when the warmup of a test case is over.
+ *
+ * The calculation times are split into consecutive windows. Warmup ends once mean and variance
+ * stayed the same over several windows in a row, i.e. JIT compilation, cache warming and frequency
+ * scaling don't shift the timing anymore. Runs which never settle stop after a maximum number of iterations.
+ */
+public class SteadyStateDetector
+{
+    private static final int WINDOW_SIZE = 20;
+    private static final int STABLE_WINDOWS = 3;
+    private static final double MEAN_TOLERANCE = 0.05;
+    private static final double MAX_VARIANCE_RATIO = 4.0;
+    // Differences below this are within the timer resolution of most devices
+    private static final long RESOLUTION = 1000; // in ns
+
+    public static final int MIN_ITERATIONS = (STABLE_WINDOWS + 1) * WINDOW_SIZE;
+
+    private final int mMaxIterations;
+
+    private ResultStatistics mWindow = new ResultStatistics();
+    private ResultStatistics mLastWindow = null;
+    private int mIterations = 0;
+    private int mStableWindows = 0;
+    private boolean mSteady = false;
+
+    /**
+     * @param maxIterations Iterations after which the warmup ends even if the timing never settled.
+     */
+    public SteadyStateDetector(int maxIterations)
+    {
+        mMaxIterations = Math.max(MIN_ITERATIONS, maxIterations);
+    }
+
+    /**
+     * Adds the calculation time of a warmup iteration.
+     * @return True once the warmup is over.
+     */
+    public boolean add(long calcTime)
+    {
+        mIterations++;
+        mWindow.add(calcTime);
+
+        if (mWindow.getCount() == WINDOW_SIZE)
+        {
+            // Compare each window with the one before
+            boolean stable = (mLastWindow != null) && isSimilar(mWindow, mLastWindow);
+            mStableWindows = stable ? mStableWindows + 1 : 0;
+            mSteady = (mStableWindows >= STABLE_WINDOWS);
+
+            mLastWindow = mWindow;
+            mWindow = new ResultStatistics();
+        }
+
+        return mSteady || mIterations >= mMaxIterations;
+    }
+
+    private static boolean isSimilar(ResultStatistics window, ResultStatistics reference)
+    {
+        double meanChange = Math.abs(window.getMean() - reference.getMean());
+        if (meanChange > Math.max(MEAN_TOLERANCE * reference.getMean(), RESOLUTION)) { return false; }
+
+        // Variances are allowed to differ more, single outliers are common
+        double noise = (double) RESOLUTION * RESOLUTION;
+        return window.getVar() <= MAX_VARIANCE_RATIO * reference.getVar() + noise
+            && reference.getVar() <= MAX_VARIANCE_RATIO * window.getVar() + noise;
+    }
+
+    /**
+     * @return Number of warmup iterations so far.
+     */
+    public int getIterations()
+    {
+        return mIterations;
+    }
+
+    /**
+     * @return False if the warmup was ended by the maximum number of iterations.
+     */
+    public boolean isSteady()
+    {
+        return mSteady;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+/**
+ * Describes a stressor thread which loads the system while a test case is measured.
+ */
+public class StressLoad
+{
+    // Types of the generated load
+    public static final int TYPE_CPU = 0;
+    public static final int TYPE_MEMORY = 1;
+    public static final int TYPE_ALLOCATION = 2;
+    public static final int TYPE_FILE_IO = 3;
+    public static final int TYPE_IPC = 4;
+    public static final String[] TYPE_NAMES = { "CPU spin", "Memory streaming", "Allocation churn", "File I/O", "IPC ping-pong" };
+
+    private int mType;
+    private int mPriority;
+    private int mCpuCore;
+
+    /**
+     * Initialize stress load with given values, priority and core use the constants of {@link TestCase}.
+     */
+    public StressLoad(int type, int priority, int cpuCore)
+    {
+        setType(type);
+        setPriority(priority);
+        setCpuCore(cpuCore);
+    }
+
+    public int getType()
+    {
+        return mType;
+    }
+
+    public void setType(int type)
+    {
+        // Catch illegal values
+        if (type < TYPE_CPU || TYPE_IPC < type)
+        {
+            throw new RuntimeException("Illegal stress load type");
+        }
+
+        mType = type;
+    }
+
+    public int getRealtimePriority()
+    {
+        return mPriority;
+    }
+
+    public void setPriority(int priority)
+    {
+        // Catch illegal values
+        if (priority != TestCase.NO_PRIORITY && (priority < TestCase.PRIORITY_MIN || TestCase.PRIORITY_MAX < priority))
+        {
+            throw new RuntimeException("Illegal realtime priority value");
+        }
+
+        mPriority = priority;
+    }
+
+    public int getCpuCore()
+    {
+        return mCpuCore;
+    }
+
+    public void setCpuCore(int cpuCore)
+    {
+        // Catch illegal values
+        int coreCount = Runtime.getRuntime().availableProcessors();
+        if (cpuCore != TestCase.NO_CORE_LOCK && (cpuCore < TestCase.CORE_LOCK_MIN || coreCount <= cpuCore))
+        {
+            throw new RuntimeException("Illegal cpu core value");
+        }
+
+        mCpuCore = cpuCore;
+    }
+
+    /**
+     * @return Readable description of the load.
+     */
+    public String getName()
+    {
+        StringBuilder name = new StringBuilder(TYPE_NAMES[mType]);
+        if (mCpuCore != TestCase.NO_CORE_LOCK) { name.append(" on core ").append(mCpuCore); }
+        if (mPriority != TestCase.NO_PRIORITY) { name.append(" at priority ").append(mPriority); }
+        return name.toString();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) { return true; }
+        if (o == null || getClass() != o.getClass()) { return false; }
+
+        StressLoad load = (StressLoad) o;
+        return mType == load.mType && mPriority == load.mPriority && mCpuCore == load.mCpuCore;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = mType;
+        result = 31 * result + mPriority;
+        result = 31 * result + mCpuCore;
+        return result;
+    }
+}
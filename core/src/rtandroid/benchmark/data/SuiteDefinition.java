@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import rtandroid.benchmark.benchmarks.BenchmarkManager;
+
+/**
+ * Describes a batch of benchmark runs, parsed from a JSON file like
+ * <pre>
+ * {
+ *   "Name": "nightly",
+ *   "Benchmarks": [ "Fibonacci-Iterative", "Matrix-Tiled-double" ],
+ *   "Parameters": [ 10 ],
+ *   "ParameterRange": { "From": 100, "To": 1000, "Step": 300 },
+ *   "SleepUs": [ 500, 1000 ],
+ *   "Cycles": [ 100000 ],
+ *   "TolerancePercent": 2,
+ *   "MaxDurationS": 600,
+ *   "DurationS": 0,
+ *   "SnapshotIntervalS": 600,
+ *   "CooldownMs": 5000,
+ *   "TestCases": [ { "mName": "RT", "mPriority": 90, "mPowerLevel": 100, "mCpuCore": 1 } ]
+ * }
+ * </pre>
+ * Test cases use the same format as the ones saved by the app. Every combination of benchmark,
+ * parameter, sleep time and cycle count is measured with all test cases. With a tolerance,
+ * the cycle counts are budgets of adaptive runs. With a duration, every run is a soak run
+ * measuring for that many seconds and the cycle counts only limit the warmup.
+ */
+public class SuiteDefinition
+{
+    public static final int DEFAULT_COOLDOWN = 5000; // in ms
+
+    public String Name = "suite";
+    public String[] Benchmarks;
+    public int[] Parameters;
+    public Range ParameterRange;
+    public int[] SleepUs;
+    public int[] Cycles;
+    public boolean Periodic;
+    public int Threads = 1;
+    public int PriorityStep = 0;
+    public int WorkerThreads = 1;
+    public boolean ExportCsv;
+    public int TolerancePercent = BenchmarkConfiguration.NO_TOLERANCE;
+    public int MaxDurationS = BenchmarkConfiguration.NO_MAX_DURATION;
+    public int DurationS = BenchmarkConfiguration.NO_DURATION;
+    public int SnapshotIntervalS = BenchmarkConfiguration.DEFAULT_SNAPSHOT_INTERVAL;
+    public int CooldownMs = DEFAULT_COOLDOWN;
+    public TestCase[] TestCases;
+
+    /**
+     * Inclusive range of parameter values.
+     */
+    public static class Range
+    {
+        public int From;
+        public int To;
+        public int Step = 1;
+    }
+
+    /**
+     * Parses and validates the suite stored in the given file.
+     */
+    public static SuiteDefinition read(String fileName) throws IOException
+    {
+        SuiteDefinition suite;
+        Reader reader = new InputStreamReader(new FileInputStream(fileName), "UTF-8");
+        try { suite = new Gson().fromJson(reader, SuiteDefinition.class); }
+        catch (JsonParseException e) { throw new IOException("Malformed suite file: " + e.getMessage()); }
+        finally { reader.close(); }
+
+        if (suite == null) { throw new IOException("Empty suite file: " + fileName); }
+        suite.validate();
+        return suite;
+    }
+
+    private void validate() throws IOException
+    {
+        if (Benchmarks == null || Benchmarks.length == 0) { throw new IOException("Suite contains no benchmarks"); }
+        if (getParameters().length == 0) { throw new IOException("Suite contains no parameters"); }
+        if (SleepUs == null || SleepUs.length == 0) { throw new IOException("Suite contains no sleep times"); }
+        if (Cycles == null || Cycles.length == 0) { throw new IOException("Suite contains no cycle counts"); }
+        if (TestCases == null || TestCases.length == 0) { throw new IOException("Suite contains no test cases"); }
+        if (ParameterRange != null && ParameterRange.Step <= 0) { throw new IOException("Parameter range needs a positive step"); }
+        if (Threads < 1 || PriorityStep < 0 || CooldownMs < 0) { throw new IOException("Illegal thread count, priority step or cooldown"); }
+        if (WorkerThreads < 1) { throw new IOException("Illegal worker count"); }
+        if (TolerancePercent < 0 || MaxDurationS < 0) { throw new IOException("Illegal tolerance or time budget"); }
+        if (DurationS < 0 || SnapshotIntervalS <= 0) { throw new IOException("Illegal duration or snapshot interval"); }
+
+        for (String name : Benchmarks) { findBenchmark(name); }
+        for (int i = 0; i < TestCases.length; i++) { TestCases[i] = rebuildTestCase(TestCases[i]); }
+    }
+
+    /**
+     * @return Copy of a parsed test case built through its setters, as Gson bypasses their checks and the defaults.
+     */
+    private static TestCase rebuildTestCase(TestCase parsed) throws IOException
+    {
+        if (parsed == null || parsed.getName() == null) { throw new IOException("Suite contains a test case without name"); }
+
+        try
+        {
+            TestCase testCase = new TestCase(parsed.getName(), parsed.getRealtimePriority(), parsed.getPowerLevel(), parsed.getCpuCore());
+            testCase.setWaitStrategy(parsed.getWaitStrategy());
+            // A missing spin margin is parsed as zero
+            testCase.setSpinMargin((parsed.getSpinMargin() != 0) ? parsed.getSpinMargin() : TestCase.SPIN_MARGIN_DEFAULT);
+
+            List<StressLoad> stressLoads = new ArrayList<>();
+            for (StressLoad load : parsed.getStressLoads())
+            {
+                if (load == null) { throw new IOException("Empty stress load in test case: " + parsed.getName()); }
+                stressLoads.add(new StressLoad(load.getType(), load.getRealtimePriority(), load.getCpuCore()));
+            }
+            testCase.setStressLoads(stressLoads);
+            return testCase;
+        }
+        catch (RuntimeException e) { throw new IOException("Illegal test case " + parsed.getName() + ": " + e.getMessage()); }
+    }
+
+    private static int findBenchmark(String name) throws IOException
+    {
+        int idx = BenchmarkManager.findBenchmark(name);
+        if (idx == BenchmarkManager.NO_BENCHMARK) { throw new IOException("Unknown benchmark in suite: " + name); }
+        return idx;
+    }
+
+    /**
+     * @return All parameter values, the listed ones followed by the range.
+     */
+    public int[] getParameters()
+    {
+        Set<Integer> values = new LinkedHashSet<>();
+        if (Parameters != null)
+        {
+            for (int parameter : Parameters) { values.add(parameter); }
+        }
+
+        if (ParameterRange != null && ParameterRange.Step > 0)
+        {
+            for (int parameter = ParameterRange.From; parameter <= ParameterRange.To; parameter += ParameterRange.Step) { values.add(parameter); }
+        }
+
+        int[] parameters = new int[values.size()];
+        int idx = 0;
+        for (int parameter : values) { parameters[idx++] = parameter; }
+        return parameters;
+    }
+
+    /**
+     * @return Cross product of benchmarks, parameters, sleep times and cycle counts.
+     */
+    public List<BenchmarkConfiguration> getConfigurations() throws IOException
+    {
+        List<BenchmarkConfiguration> configs = new ArrayList<>();
+        for (String benchmark : Benchmarks)
+        {
+            int benchmarkIdx = findBenchmark(benchmark);
+            for (int parameter : getParameters())
+            {
+                for (int sleepUs : SleepUs)
+                {
+                    for (int cycles : Cycles)
+                    {
+                        BenchmarkConfiguration config = new BenchmarkConfiguration();
+                        config.BenchmarkIdx = benchmarkIdx;
+                        config.Parameter = parameter;
+                        config.SleepUs = sleepUs;
+                        config.Cycles = cycles;
+                        config.Periodic = Periodic;
+                        config.Threads = Threads;
+                        config.PriorityStep = PriorityStep;
+                        config.WorkerThreads = WorkerThreads;
+                        config.ExportCsv = ExportCsv;
+                        config.TolerancePercent = TolerancePercent;
+                        config.MaxDurationS = MaxDurationS;
+                        config.DurationS = DurationS;
+                        config.SnapshotIntervalS = SnapshotIntervalS;
+                        configs.add(config);
+                    }
+                }
+            }
+        }
+
+        return configs;
+    }
+
+    public List<TestCase> getTestCases()
+    {
+        return Arrays.asList(TestCases);
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents a possible test case.
+ */
+public class TestCase
+{
+    public static final int NO_PRIORITY = -1;
+    // Range of SCHED_FIFO, as defined by the RTAndroid API
+    public static final int PRIORITY_MIN = 1;
+    public static final int PRIORITY_MAX = 99;
+
+    public static final int NO_POWER_LEVEL = -1;
+    public static final int POWER_LEVEL_MIN = 1;
+    public static final int POWER_LEVEL_MAX = 100;
+
+    public static final int NO_CORE_LOCK = 0;
+    public static final int CORE_LOCK_MIN = 1;
+
+    // Wait strategies, values are shared with the native library
+    public static final int WAIT_SLEEP = 0;
+    public static final int WAIT_SPIN = 1;
+    public static final int WAIT_ABSOLUTE = 2;
+    public static final int WAIT_HYBRID = 3;
+    public static final String[] WAIT_STRATEGY_NAMES = { "Sleep", "Spin", "Absolute sleep", "Hybrid" };
+
+    public static final int SPIN_MARGIN_DEFAULT = 100;
+    public static final int SPIN_MARGIN_MAX = 1000;
+
+    // Appended to the name of the idle measurement of a test case with stress loads
+    public static final String IDLE_SUFFIX = " (idle)";
+
+    private String mName;
+    private int mPriority;
+    private int mPowerLevel;
+    private int mCpuCore;
+    private int mWaitStrategy = WAIT_SLEEP;
+    private int mSpinMarginUs = SPIN_MARGIN_DEFAULT;
+    // Test cases of older versions are restored by Gson without this field
+    private List<StressLoad> mStressLoads = new ArrayList<>();
+
+    /**
+     * Initialize test case with given values.
+     */
+    public TestCase(String name, int priority, int powerLevel, int cpuCore)
+    {
+        mName = name;
+
+        // Try to set values
+        setPriority(priority);
+        setPowerLevel(powerLevel);
+        setCpuCore(cpuCore);
+    }
+
+    public String getName()
+    {
+        return mName;
+    }
+
+    public void setName(String name)
+    {
+        mName = name;
+    }
+
+    public int getRealtimePriority()
+    {
+        return mPriority;
+    }
+
+    public void setPriority(int priority)
+    {
+        // Catch illegal values
+        if (priority != NO_PRIORITY && (priority < PRIORITY_MIN || PRIORITY_MAX < priority))
+        {
+            throw new RuntimeException("Illegal realtime priority value");
+        }
+
+        mPriority = priority;
+    }
+
+    public int getPowerLevel()
+    {
+        return mPowerLevel;
+    }
+
+    public void setPowerLevel(int powerLevel)
+    {
+        // Catch illegal values
+        if (powerLevel != NO_POWER_LEVEL && (powerLevel < POWER_LEVEL_MIN || POWER_LEVEL_MAX < powerLevel))
+        {
+            throw new RuntimeException("Illegal power level value");
+        }
+
+        mPowerLevel = powerLevel;
+    }
+
+    public int getCpuCore()
+    {
+        return mCpuCore;
+    }
+
+    public void setCpuCore(int cpuCore)
+    {
+        // Catch illegal values
+        int coreCount = Runtime.getRuntime().availableProcessors();
+        if (cpuCore != NO_CORE_LOCK && (cpuCore < CORE_LOCK_MIN || coreCount <= cpuCore))
+        {
+            throw new RuntimeException("Illegal cpu core value");
+        }
+
+        mCpuCore = cpuCore;
+    }
+
+    /**
+     * @return Core the given number of cores after the first one, wrapping around and never core 0.
+     */
+    public static int getFollowingCpuCore(int firstCore, int offset)
+    {
+        // Core 0 is never locked, as it handles the rest of the system
+        int coreCount = Runtime.getRuntime().availableProcessors() - CORE_LOCK_MIN;
+        if (coreCount <= 0) { return NO_CORE_LOCK; }
+
+        int first = (firstCore == NO_CORE_LOCK) ? 0 : firstCore - CORE_LOCK_MIN;
+        return CORE_LOCK_MIN + (first + offset) % coreCount;
+    }
+
+    public int getWaitStrategy()
+    {
+        return mWaitStrategy;
+    }
+
+    /**
+     * @return Strategy actually used with the given schedule.
+     * Periodic runs never sleep relative, as a preemption before the sleep would shift all following deadlines.
+     */
+    public int getWaitStrategy(boolean periodic)
+    {
+        return (periodic && mWaitStrategy == WAIT_SLEEP) ? WAIT_ABSOLUTE : mWaitStrategy;
+    }
+
+    public void setWaitStrategy(int waitStrategy)
+    {
+        // Catch illegal values
+        if (waitStrategy < WAIT_SLEEP || WAIT_HYBRID < waitStrategy)
+        {
+            throw new RuntimeException("Illegal wait strategy");
+        }
+
+        mWaitStrategy = waitStrategy;
+    }
+
+    /**
+     * @return Time in microseconds the hybrid strategy spins before the deadline.
+     */
+    public int getSpinMargin()
+    {
+        return mSpinMarginUs;
+    }
+
+    public void setSpinMargin(int spinMarginUs)
+    {
+        // Catch illegal values
+        if (spinMarginUs < 0 || SPIN_MARGIN_MAX < spinMarginUs)
+        {
+            throw new RuntimeException("Illegal spin margin value");
+        }
+
+        mSpinMarginUs = spinMarginUs;
+    }
+
+    /**
+     * @return Readable description of the wait strategy.
+     */
+    public String getWaitStrategyName()
+    {
+        return getWaitStrategyName(false);
+    }
+
+    /**
+     * @return Readable description of the wait strategy actually used with the given schedule.
+     */
+    public String getWaitStrategyName(boolean periodic)
+    {
+        int waitStrategy = getWaitStrategy(periodic);
+        String name = WAIT_STRATEGY_NAMES[waitStrategy];
+        if (waitStrategy == WAIT_HYBRID) { name += " (" + mSpinMarginUs + " \u03bcs spin)"; }
+        return name;
+    }
+
+    /**
+     * @return Stress loads running in the background while measuring, empty for an idle system.
+     */
+    public List<StressLoad> getStressLoads()
+    {
+        if (mStressLoads == null) { return Collections.emptyList(); }
+        return Collections.unmodifiableList(mStressLoads);
+    }
+
+    public void setStressLoads(List<StressLoad> stressLoads)
+    {
+        mStressLoads = new ArrayList<>(stressLoads);
+    }
+
+    public boolean hasStressLoads()
+    {
+        return !getStressLoads().isEmpty();
+    }
+
+    /**
+     * @return Copy of this test case without stress loads, used to measure the idle system first.
+     */
+    public TestCase getIdleBaseline()
+    {
+        TestCase baseline = new TestCase(mName + IDLE_SUFFIX, mPriority, mPowerLevel, mCpuCore);
+        baseline.setWaitStrategy(mWaitStrategy);
+        baseline.setSpinMargin(mSpinMarginUs);
+        return baseline;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) { return true; }
+        if (o == null || getClass() != o.getClass()) { return false; }
+
+        TestCase testCase = (TestCase) o;
+
+        if (mPriority != testCase.mPriority) { return false; }
+        if (mPowerLevel != testCase.mPowerLevel) { return false; }
+        if (mWaitStrategy != testCase.mWaitStrategy) { return false; }
+        if (mSpinMarginUs != testCase.mSpinMarginUs) { return false; }
+        if (!mName.equals(testCase.mName)) { return false; }
+        if (!getStressLoads().equals(testCase.getStressLoads())) { return false; }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = mName.hashCode();
+        result = 31 * result + mPriority;
+        result = 31 * result + mPowerLevel;
+        result = 31 * result + mCpuCore;
+        result = 31 * result + mWaitStrategy;
+        result = 31 * result + mSpinMarginUs;
+        result = 31 * result + getStressLoads().hashCode();
+        return result;
+    }
+
+    public static class TestCaseComparator implements Comparator<TestCase>, Serializable
+    {
+        @Override
+        public int compare(TestCase testCase1, TestCase testCase2)
+        {
+            int value1 = testCase1.getSortingValue();
+            int value2 = testCase2.getSortingValue();
+
+            return value1 - value2;
+        }
+    }
+
+    private int getSortingValue()
+    {
+        int value = getRealtimePriority() + getPowerLevel();
+
+        if (getCpuCore() != NO_CORE_LOCK) { value += 100; }
+
+        return value;
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.host;
+
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import rtandroid.benchmark.benchmarks.Benchmark;
+import rtandroid.benchmark.benchmarks.BenchmarkManager;
+import rtandroid.benchmark.data.BenchmarkConfiguration;
+import rtandroid.benchmark.data.BenchmarkResult;
+import rtandroid.benchmark.data.ResultAnalyzer;
+import rtandroid.benchmark.data.ResultReader;
+import rtandroid.benchmark.data.SuiteDefinition;
+import rtandroid.benchmark.data.TestCase;
+import rtandroid.benchmark.service.SuiteRunner;
+import rtandroid.benchmark.service.TestCaseRunner;
+import rtandroid.benchmark.utils.Platform;
+
+/**
+ * Runs the benchmarks from the command line on a plain JVM, e.g. on a Linux host.
+ * Executes the same workloads, wait strategies and statistics as the app, the summary is printed
+ * to stdout while log messages go to stderr.
+ */
+public class HostRunner
+{
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_FAILED = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private static final String USAGE =
+            "Usage: HostRunner [options]\n" +
+            "       HostRunner --suite <file>\n" +
+            "       HostRunner --analyze <file> [--analyze <file>...]\n" +
+            "\n" +
+            "  --list                   List all benchmarks and exit\n" +
+            "  --benchmark <name|idx>   Benchmark to run (default: first)\n" +
+            "  --parameter <n>          Parameter of the benchmark (default: 100)\n" +
+            "  --cycles <n>             Measured iterations or budget (default: 10000)\n" +
+            "  --sleep <us>             Sleep time per iteration (default: 1000)\n" +
+            "  --periodic               Wake up on fixed deadlines\n" +
+            "  --threads <n>            Measuring threads (default: 1)\n" +
+            "  --priority-step <n>      Priority decrease per parallel thread (default: 0)\n" +
+            "  --workers <n>            Threads computing each execution of matrix benchmarks (default: 1)\n" +
+            "  --tolerance <percent>    Stop once the results have converged\n" +
+            "  --max-duration <s>       Time budget of adaptive runs\n" +
+            "  --duration <s>           Soak run for a fixed wall-clock time\n" +
+            "  --snapshot-interval <s>  Histogram interval of soak runs\n" +
+            "  --wait <strategy>        sleep, spin, absolute or hybrid (default: sleep)\n" +
+            "  --spin-margin <us>       Spin margin of the hybrid strategy\n" +
+            "  --priority <n>           Real-time priority (ignored on hosts)\n" +
+            "  --core <n>               Lock to a core (ignored on hosts)\n" +
+            "  --csv                    Export the samples as CSV\n" +
+            "  --output <dir>           Directory of the result folder (default: working directory)\n" +
+            "  --json <file>            Write the result as JSON, readable by the app\n" +
+            "  --suite <file>           Run a suite definition unattended\n" +
+            "  --analyze <file>         Analyse an existing .dat or .csv log instead of measuring, repeat to\n" +
+            "                           combine the logs of parallel threads. CSV files take the sleep time\n" +
+            "                           and schedule from the options above\n";
+
+    /**
+     * Stores the result folder in the given directory instead of the working directory.
+     */
+    private static class HostPlatform extends Platform
+    {
+        private final File mStorageDirectory;
+
+        HostPlatform(File storageDirectory)
+        {
+            mStorageDirectory = storageDirectory;
+        }
+
+        @Override
+        public File getStorageDirectory()
+        {
+            return mStorageDirectory;
+        }
+    }
+
+    private final BenchmarkConfiguration mConfig = new BenchmarkConfiguration();
+    private final TestCase mTestCase = new TestCase("Host", TestCase.NO_PRIORITY, TestCase.NO_POWER_LEVEL, TestCase.NO_CORE_LOCK);
+    private String mSuiteFileName = null;
+    private final List<String> mAnalyzeFileNames = new ArrayList<>();
+    private String mJsonFileName = null;
+    private boolean mListOnly = false;
+    private boolean mHelpOnly = false;
+
+    private HostRunner()
+    {
+        mConfig.BenchmarkIdx = 0;
+        mConfig.Parameter = 100;
+        mConfig.Cycles = 10000;
+        mConfig.SleepUs = 1000;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        // Units and test case names are not ASCII, print them the same way in every locale
+        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out), true, "UTF-8"));
+        System.setErr(new PrintStream(new FileOutputStream(FileDescriptor.err), true, "UTF-8"));
+
+        HostRunner runner = new HostRunner();
+        try { runner.parse(args); }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println("Error: " + e.getMessage());
+            System.err.print(USAGE);
+            System.exit(EXIT_USAGE);
+        }
+
+        int exitCode;
+        try { exitCode = runner.run(); }
+        catch (IOException e)
+        {
+            System.err.println("Error: " + e.getMessage());
+            exitCode = EXIT_FAILED;
+        }
+        catch (InterruptedException e) { exitCode = EXIT_FAILED; }
+
+        System.exit(exitCode);
+    }
+
+    private void parse(String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            String option = args[i];
+            switch (option)
+            {
+                case "--help": mHelpOnly = true; break;
+                case "--list": mListOnly = true; break;
+                case "--periodic": mConfig.Periodic = true; break;
+                case "--csv": mConfig.ExportCsv = true; break;
+                default:
+                    if (i + 1 >= args.length) { throw new IllegalArgumentException("Unknown option or missing value: " + option); }
+                    parseValue(option, args[++i]);
+            }
+        }
+
+        if (mConfig.Cycles <= 0 || mConfig.SleepUs < 0 || mConfig.Threads < 1 || mConfig.PriorityStep < 0) { throw new IllegalArgumentException("Illegal cycles, sleep time, thread count or priority step"); }
+        if (mConfig.WorkerThreads < 1) { throw new IllegalArgumentException("Illegal worker count"); }
+        if (mConfig.TolerancePercent < 0 || mConfig.MaxDurationS < 0) { throw new IllegalArgumentException("Illegal tolerance or time budget"); }
+        if (mConfig.DurationS < 0 || mConfig.SnapshotIntervalS <= 0) { throw new IllegalArgumentException("Illegal duration or snapshot interval"); }
+    }
+
+    private void parseValue(String option, String value)
+    {
+        try
+        {
+            switch (option)
+            {
+                case "--benchmark": mConfig.BenchmarkIdx = findBenchmark(value); break;
+                case "--parameter": mConfig.Parameter = Integer.parseInt(value); break;
+                case "--cycles": mConfig.Cycles = Integer.parseInt(value); break;
+                case "--sleep": mConfig.SleepUs = Integer.parseInt(value); break;
+                case "--threads": mConfig.Threads = Integer.parseInt(value); break;
+                case "--priority-step": mConfig.PriorityStep = Integer.parseInt(value); break;
+                case "--workers": mConfig.WorkerThreads = Integer.parseInt(value); break;
+                case "--tolerance": mConfig.TolerancePercent = Integer.parseInt(value); break;
+                case "--max-duration": mConfig.MaxDurationS = Integer.parseInt(value); break;
+                case "--duration": mConfig.DurationS = Integer.parseInt(value); break;
+                case "--snapshot-interval": mConfig.SnapshotIntervalS = Integer.parseInt(value); break;
+                case "--wait": mTestCase.setWaitStrategy(findWaitStrategy(value)); break;
+                case "--spin-margin": mTestCase.setSpinMargin(Integer.parseInt(value)); break;
+                case "--priority": mTestCase.setPriority(Integer.parseInt(value)); break;
+                case "--core": mTestCase.setCpuCore(Integer.parseInt(value)); break;
+                case "--output": Platform.install(new HostPlatform(new File(value))); break;
+                case "--json": mJsonFileName = value; break;
+                case "--suite": mSuiteFileName = value; break;
+                case "--analyze": mAnalyzeFileNames.add(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        catch (NumberFormatException e) { throw new IllegalArgumentException("Not a number for " + option + ": " + value); }
+        catch (IllegalArgumentException e) { throw e; }
+        catch (RuntimeException e) { throw new IllegalArgumentException(option + ": " + e.getMessage()); }
+    }
+
+    private static int findBenchmark(String value)
+    {
+        int idx = BenchmarkManager.findBenchmark(value);
+        if (idx != BenchmarkManager.NO_BENCHMARK) { return idx; }
+
+        Benchmark[] benchmarks = BenchmarkManager.getBenchmarks();
+        idx = Integer.parseInt(value);
+        if (idx < 0 || idx >= benchmarks.length) { throw new IllegalArgumentException("Unknown benchmark: " + value); }
+        return idx;
+    }
+
+    private static int findWaitStrategy(String value)
+    {
+        switch (value.toLowerCase(Locale.US))
+        {
+            case "sleep": return TestCase.WAIT_SLEEP;
+            case "spin": return TestCase.WAIT_SPIN;
+            case "absolute": return TestCase.WAIT_ABSOLUTE;
+            case "hybrid": return TestCase.WAIT_HYBRID;
+            default: throw new IllegalArgumentException("Unknown wait strategy: " + value);
+        }
+    }
+
+    private int run() throws IOException, InterruptedException
+    {
+        if (mHelpOnly)
+        {
+            System.out.print(USAGE);
+            return EXIT_OK;
+        }
+
+        if (mListOnly)
+        {
+            Benchmark[] benchmarks = BenchmarkManager.getBenchmarks();
+            for (int i = 0; i < benchmarks.length; i++) { System.out.println(i + ": " + benchmarks[i].getName()); }
+            return EXIT_OK;
+        }
+
+        TestCaseRunner runner = new TestCaseRunner();
+        if (mSuiteFileName != null)
+        {
+            SuiteDefinition suite = SuiteDefinition.read(mSuiteFileName);
+            String resultFileName = new SuiteRunner(suite, runner).run();
+            System.out.println("Suite results written to " + resultFileName);
+            return EXIT_OK;
+        }
+
+        if (!mAnalyzeFileNames.isEmpty()) { return analyze(); }
+
+        BenchmarkResult result = new BenchmarkResult(getResultName(mConfig));
+        if (!runner.run(mConfig, mTestCase, null, result)) { return EXIT_FAILED; }
+
+        printSummary(result);
+        if (mJsonFileName != null) { writeJson(result); }
+        return EXIT_OK;
+    }
+
+    /**
+     * Evaluates existing logs the same way as a measurement.
+     */
+    private int analyze() throws IOException
+    {
+        String[] fileNames = mAnalyzeFileNames.toArray(new String[mAnalyzeFileNames.size()]);
+        ResultAnalyzer analyzer = new ResultAnalyzer(mConfig, fileNames);
+
+        // Only binary logs know their test case, CSV files are named after the file
+        String testCase = new File(fileNames[0]).getName();
+        String waitStrategy = mTestCase.getWaitStrategyName(mConfig.Periodic);
+        if (!fileNames[0].endsWith(ResultReader.CSV_EXTENSION))
+        {
+            ResultReader reader = new ResultReader(fileNames[0]);
+            try
+            {
+                testCase = reader.getTestCaseName();
+                waitStrategy = TestCase.WAIT_STRATEGY_NAMES[reader.getWaitStrategy()];
+            }
+            finally { reader.close(); }
+        }
+
+        BenchmarkResult result = new BenchmarkResult(getResultName(analyzer.getConfiguration()));
+        result.addLogAnalysis(testCase, waitStrategy, analyzer);
+
+        printSummary(result);
+        if (mJsonFileName != null) { writeJson(result); }
+        return EXIT_OK;
+    }
+
+    private static String getResultName(BenchmarkConfiguration config)
+    {
+        Benchmark benchmark = config.getBenchmark();
+        return String.format(Locale.US, "%s (p=%d, s=%d \u03bcs, c=%d)", benchmark.getName(), config.Parameter, config.SleepUs, config.Cycles);
+    }
+
+    private static void printSummary(BenchmarkResult result)
+    {
+        System.out.println(result.getName());
+
+        Map<String, Long> cycles = result.getResult(BenchmarkResult.Kind.CYCLES);
+        for (String testCase : cycles.keySet())
+        {
+            System.out.println(String.format(Locale.US, "%s: %d cycles, stopped by %s", testCase, cycles.get(testCase), result.getStopReason(testCase)));
+            printRow(result, testCase, "  calculation", BenchmarkResult.Kind.CALCULATION_MINIMUM, BenchmarkResult.Kind.CALCULATION_MEAN,
+                    BenchmarkResult.Kind.CALCULATION_P99, BenchmarkResult.Kind.CALCULATION_P9999, BenchmarkResult.Kind.CALCULATION_MAXIMUM);
+            printRow(result, testCase, "  sleep      ", BenchmarkResult.Kind.SLEEP_MINIMUM, BenchmarkResult.Kind.SLEEP_MEAN,
+                    BenchmarkResult.Kind.SLEEP_P99, BenchmarkResult.Kind.SLEEP_P9999, BenchmarkResult.Kind.SLEEP_MAXIMUM);
+
+            Long misses = result.getResult(BenchmarkResult.Kind.SLEEP_DEADLINE_MISSES).get(testCase);
+            if (misses != null) { System.out.println("  deadline misses: " + misses); }
+
+            // Statistics of runs with dropped samples have gaps
+            Long dropped = result.getResult(BenchmarkResult.Kind.DROPPED_SAMPLES).get(testCase);
+            if (dropped != null && dropped > 0) { System.out.println("  dropped samples: " + dropped); }
+
+            Long calcGcHits = result.getResult(BenchmarkResult.Kind.CALCULATION_GC_HITS).get(testCase);
+            Long sleepGcHits = result.getResult(BenchmarkResult.Kind.SLEEP_GC_HITS).get(testCase);
+            if (calcGcHits != null && sleepGcHits != null)
+            {
+                long calcGcMax = result.getResult(BenchmarkResult.Kind.CALCULATION_GC_MAXIMUM).get(testCase);
+                long sleepGcMax = result.getResult(BenchmarkResult.Kind.SLEEP_GC_MAXIMUM).get(testCase);
+                System.out.println(String.format(Locale.US, "  hit by gc: %d calculations (max %.1f \u03bcs), %d sleeps (max %.1f \u03bcs)",
+                        calcGcHits, calcGcMax / 1000.0, sleepGcHits, sleepGcMax / 1000.0));
+            }
+
+            String rate = result.getRate(testCase);
+            if (rate != null) { System.out.println("  rate: " + rate); }
+        }
+    }
+
+    private static void printRow(BenchmarkResult result, String testCase, String label, BenchmarkResult.Kind... kinds)
+    {
+        StringBuilder row = new StringBuilder(label);
+        String[] names = { "min", "mean", "p99", "p99.99", "max" };
+        for (int i = 0; i < kinds.length; i++)
+        {
+            Long value = result.getResult(kinds[i]).get(testCase);
+            if (value == null) { continue; }
+            row.append(String.format(Locale.US, "  %s %.1f \u03bcs", names[i], value / 1000.0));
+        }
+
+        System.out.println(row);
+    }
+
+    private void writeJson(BenchmarkResult result) throws IOException
+    {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(mJsonFileName), "UTF-8");
+        try { new Gson().toJson(new BenchmarkResult[] { result }, BenchmarkResult[].class, writer); }
+        finally { writer.close(); }
+
+        System.out.println("Result written to " + mJsonFileName);
+    }
+}
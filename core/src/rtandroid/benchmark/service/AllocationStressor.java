@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import rtandroid.benchmark.data.StressLoad;
+
+/**
+ * Allocates objects of mixed sizes, some of which survive for a while, to keep the garbage collector busy.
+ */
+class AllocationStressor extends Stressor
+{
+    private static final int CHUNK_ALLOCATIONS = 1024;
+    private static final int SURVIVOR_COUNT = 4096;
+    private static final int MAX_ALLOCATION_SIZE = 16 * 1024;
+
+    private final Object[] mSurvivors = new Object[SURVIVOR_COUNT];
+    private int mSeed = 1;
+
+    AllocationStressor(StressLoad load)
+    {
+        super(load);
+    }
+
+    @Override
+    protected void stress()
+    {
+        for (int i = 0; i < CHUNK_ALLOCATIONS; i++)
+        {
+            // Simple xorshift keeps the sizes and survivors unpredictable
+            mSeed ^= mSeed << 13;
+            mSeed ^= mSeed >>> 17;
+            mSeed ^= mSeed << 5;
+
+            byte[] garbage = new byte[(mSeed >>> 1) % MAX_ALLOCATION_SIZE];
+            mSurvivors[(mSeed >>> 1) % SURVIVOR_COUNT] = garbage;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rtandroid.benchmark.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.LockSupport;
+
+import rtandroid.benchmark.data.ResultReader;
+import rtandroid.benchmark.utils.Log;
+import rtandroid.benchmark.utils.RealTimeUtils;
+
+/**
+ * Double-buffered log writer for runs which are too long to be kept in memory.
+ *
+ * The measuring thread fills one buffer while a low-priority writer thread drains the other one
+ * to the log file. Handing over a buffer never blocks: if the writer is still busy with the
+ * previous batch, the current batch is dropped and counted instead of stalling the caller.
+ */
+public class AsyncLogWriter implements SampleRecorder, Runnable
+{
+    private static final String TAG = AsyncLogWriter.class.getSimpleName();
+    private static final int BATCH_SAMPLES = 8192;
+    private static final long IDLE_WAIT_TIME = 10 * 1000 * 1000; // in ns
+
+    private final BenchmarkLib mLib;
+    private final int mMeasuringCore;
+    private final Thread mThread;
+
+    private ByteBuffer mActive;
+    private ByteBuffer mSpare;
+    private volatile ByteBuffer mPending = null;
+    private volatile boolean mRunning = true;
+
+    private int mDroppedBatches = 0;
+    private int mDroppedSamples = 0;
+
+    public AsyncLogWriter(BenchmarkLib lib, int measuringCore)
+    {
+        mLib = lib;
+        mMeasuringCore = measuringCore;
+        mActive = allocateBuffer();
+        mSpare = allocateBuffer();
+
+        mThread = new Thread(this, TAG);
+        mThread.start();
+    }
+
+    private static ByteBuffer allocateBuffer()
+    {
+        return ByteBuffer.allocateDirect(BATCH_SAMPLES * ResultReader.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void record(long calcTime, long sleepTime)
+    {
+        mActive.putLong(calcTime);
+        mActive.putLong(sleepTime);
+        if (mActive.hasRemaining()) { return; }
+
+        if (mPending == null)
+        {
+            // Hand the full buffer over and continue with the drained one
+            ByteBuffer full = mActive;
+            mActive = mSpare;
+            mSpare = full;
+            mPending = full;
+            LockSupport.unpark(mThread);
+        }
+        else
+        {
+            // The writer is still busy, drop this batch rather than waiting
+            mDroppedBatches++;
+            mDroppedSamples += BATCH_SAMPLES;
+            mActive.clear();
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        // Stay out of the way of the measuring thread
+        RealTimeUtils.setBackgroundPriority();
+        RealTimeUtils.setCpuCoresExcept(mMeasuringCore);
+
+        while (mRunning || mPending != null)
+        {
+            ByteBuffer pending = mPending;
+            if (pending == null)
+            {
+                LockSupport.parkNanos(this, IDLE_WAIT_TIME);
+                continue;
+            }
+
+            writeBuffer(pending);
+            mPending = null;
+        }
+    }
+
+    private void writeBuffer(ByteBuffer buffer)
+    {
+        mLib.libWriteBuffer(buffer, buffer.position());
+        buffer.clear();
+    }
+
+    @Override
+    public void finish()
+    {
+        // Let the writer drain the pending batch and stop
+        mRunning = false;
+        LockSupport.unpark(mThread);
+        try { mThread.join(); }
+        catch (InterruptedException ignored) { }
+
+        // Write the partially filled buffer from here, timing doesn't matter anymore
+        if (mActive.position() > 0) { writeBuffer(mActive); }
+
+        if (mDroppedBatches > 0)
+        {
+            Log.w(TAG, "Dropped " + mDroppedBatches + " batches with " + mDroppedSamples + " samples due to slow I/O");
+        }
+    }
+
+    @Override
+    public int getDroppedSamples()
+    {
+        return mDroppedSamples;
+    }
+}
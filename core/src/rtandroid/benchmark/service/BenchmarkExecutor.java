@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.service;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import rtandroid.benchmark.utils.Log;
+import rtandroid.benchmark.utils.Platform;
+import rtandroid.benchmark.utils.RealTimeUtils;
+import rtandroid.benchmark.benchmarks.Benchmark;
+import rtandroid.benchmark.benchmarks.ParallelBenchmark;
+import rtandroid.benchmark.data.BenchmarkConfiguration;
+import rtandroid.benchmark.data.ConvergenceDetector;
+import rtandroid.benchmark.data.LatencyHistogram;
+import rtandroid.benchmark.data.ResultCollector;
+import rtandroid.benchmark.data.ResultReader;
+import rtandroid.benchmark.data.SampleRingBuffer;
+import rtandroid.benchmark.data.SteadyStateDetector;
+import rtandroid.benchmark.data.TestCase;
+
+public class BenchmarkExecutor implements Runnable
+{
+    private static final String TAG = BenchmarkExecutor.class.getSimpleName();
+    public static final int NO_THREAD = -1;
+    private static final String RESULT_FOLDER = "Benchmark";
+    private static final String FILE_TEMPLATE =  RESULT_FOLDER.toLowerCase(Locale.getDefault()) + "_b=%s_p=%d_s=%dus_m=%s_%s_case=%s%s" + ResultReader.FILE_EXTENSION;
+    private static final int LIVE_CAPACITY = 8192;
+    private static final int MEMORY_RECORDER_MAX_CYCLES = 1024 * 1024;
+    // Warmup never takes more than a third of the configured cycles
+    private static final int WARMUP_MAX_DIVISOR = 3;
+
+    private final ProgressListener mListener;
+    private final Benchmark mBenchmark;
+    private final int mParameter;
+    private final int mCycles;
+    private final int mSleepUs;
+    private final TestCase mTestCase;
+    private final BenchmarkLib mLib;
+    private final String mFileName;
+    private final boolean mExportCsv;
+    private final boolean mPeriodic;
+    private final int mTolerancePercent;
+    private final long mMaxDurationNs;
+    private final boolean mSoak;
+    private final long mDurationNs;
+    private final long mSnapshotIntervalNs;
+    private final int mThread;
+    private final int mCpuCore;
+    private final int mPriority;
+    private final int mWaitStrategy;
+    private final CyclicBarrier mStartBarrier;
+    private final ResultCollector mCollector;
+
+    private volatile boolean mInterrupted = false;
+
+    /**
+     * @param listener Receives the progress, may be null.
+     */
+    public BenchmarkExecutor(ProgressListener listener, BenchmarkConfiguration config, TestCase testCase)
+    {
+        this(listener, config, testCase, NO_THREAD, testCase.getCpuCore(), testCase.getRealtimePriority(), null);
+    }
+
+    /**
+     * Creates one of several executors measuring in parallel.
+     * @param thread Index of the thread, the primary thread 0 reports the progress.
+     * @param cpuCore Core this thread is bound to.
+     * @param priority Real-time priority of this thread.
+     * @param startBarrier Barrier releasing all threads at once after the warmup.
+     */
+    public BenchmarkExecutor(ProgressListener listener, BenchmarkConfiguration config, TestCase testCase, int thread, int cpuCore, int priority, CyclicBarrier startBarrier)
+    {
+        mListener = listener;
+        mBenchmark = config.getBenchmark();
+        mParameter = config.Parameter;
+        mCycles = config.Cycles;
+        mSleepUs = config.SleepUs;
+        mTestCase = testCase;
+        mExportCsv = config.ExportCsv;
+        mPeriodic = config.Periodic;
+        mTolerancePercent = config.TolerancePercent;
+        mMaxDurationNs = config.MaxDurationS * 1000L * 1000 * 1000;
+        mSoak = config.isSoak();
+        mDurationNs = config.DurationS * 1000L * 1000 * 1000;
+        mSnapshotIntervalNs = config.SnapshotIntervalS * 1000L * 1000 * 1000;
+        mThread = thread;
+        mCpuCore = cpuCore;
+        mPriority = priority;
+        mWaitStrategy = testCase.getWaitStrategy(mPeriodic);
+        mStartBarrier = startBarrier;
+
+        // Workers of parallel benchmarks are locked to the cores after this one
+        if (mBenchmark instanceof ParallelBenchmark) { ((ParallelBenchmark) mBenchmark).setCpuCore(mCpuCore); }
+
+        // Soak runs fill the histograms from their snapshots
+        mCollector = new ResultCollector(config, !mSoak);
+
+        File resultFolder = getResultFolder();
+
+        // Generate the filename
+        String benchmarkName = mBenchmark.getName().replaceAll("\\s", "").replace('/', '-');
+        String caseName = mTestCase.getName().replaceAll("\\s", "").replace('/', '-');
+        String mode = mPeriodic ? "abs" : "rel";
+        String length = mSoak ? String.format(Locale.US, "d=%ds", config.DurationS) : String.format(Locale.US, "c=%d", mCycles);
+        String threadName = (mThread != NO_THREAD) ? String.format(Locale.US, "_t=%d", mThread) : "";
+        String fileName = String.format(Locale.US, FILE_TEMPLATE, benchmarkName, mParameter, mSleepUs, mode, length, caseName, threadName);
+        mFileName = new File(resultFolder, fileName).getAbsolutePath();
+
+        // Create the library
+        mLib = new BenchmarkLib(mFileName, mBenchmark.getName(), mTestCase.getName(), mParameter, mSleepUs, mCycles, getFlags(ResultReader.STOP_CYCLES));
+
+        mInterrupted = false;
+    }
+
+    @Override
+    public void run()
+    {
+        try { measure(); }
+        catch (RuntimeException | Error e)
+        {
+            // Break the barrier, otherwise the other threads would wait for this one forever
+            // A timed out wait keeps it broken, unlike reset() it also releases threads arriving later
+            if (mStartBarrier != null)
+            {
+                try { mStartBarrier.await(0, TimeUnit.NANOSECONDS); }
+                catch (InterruptedException | BrokenBarrierException | TimeoutException ignored) { }
+            }
+            throw e;
+        }
+    }
+
+    private void measure()
+    {
+        String msgStart = String.format(Locale.US, "Benchmark '%s' with case '%s' started", mBenchmark.getName(), mTestCase.getName());
+        Log.d(TAG, msgStart);
+
+        // Keep the CPU power level constant, parallel runs lock it only once
+        int powerLevel = (mThread == NO_THREAD) ? mTestCase.getPowerLevel() : TestCase.NO_POWER_LEVEL;
+        RealTimeUtils.lockPowerLevel(powerLevel);
+
+        // Set real-time priority value
+        RealTimeUtils.setPriority(mPriority);
+
+        // Set the core affinity
+        int cpuCore = mCpuCore;
+        RealTimeUtils.setCpuCore(cpuCore);
+
+        // Notify the listener about the start
+        boolean primary = (mThread == NO_THREAD || mThread == 0) && mListener != null;
+        if (primary) { mListener.onTestCaseStarted(mTestCase.getName()); }
+
+        // Prepare the recorder before the measurement starts
+        // Very long runs are streamed to disk instead of being kept in memory
+        SampleRecorder recorder;
+        if (!mSoak && mCycles <= MEMORY_RECORDER_MAX_CYCLES) { recorder = new MemoryRecorder(mLib, mCycles); }
+                                                        else { recorder = new AsyncLogWriter(mLib, cpuCore); }
+
+        // Wait the same way as during the measurement
+        long sleepNs = mSleepUs * 1000L;
+        int waitStrategy = mWaitStrategy;
+        long spinMarginNs = mTestCase.getSpinMargin() * 1000L;
+
+        // Warm up until JIT compilation, caches and CPU frequency have settled
+        SteadyStateDetector warmup = new SteadyStateDetector(mCycles / WARMUP_MAX_DIVISOR);
+        boolean warm = false;
+        while (!warm && !mInterrupted)
+        {
+            mLib.libWaitUntil(mLib.libGetTime() + sleepNs, waitStrategy, spinMarginNs);
+
+            long timestamp = System.nanoTime();
+            mBenchmark.execute(mParameter);
+            warm = warmup.add(System.nanoTime() - timestamp);
+        }
+
+        if (warmup.isSteady()) { Log.d(TAG, "Steady state reached after " + warmup.getIterations() + " warmup iterations"); }
+                          else { Log.w(TAG, "No steady state after " + warmup.getIterations() + " warmup iterations"); }
+
+        // Histograms keep the distribution in constant memory
+        LatencyHistogram calcHistogram = mCollector.getCalculationHistogram();
+        LatencyHistogram sleepHistogram = mCollector.getSleepHistogram();
+
+        // Soak runs additionally keep the histograms of every interval
+        SnapshotWriter snapshots = null;
+        if (mSoak) { snapshots = new SnapshotWriter(ResultReader.getSnapshotFileName(mFileName), mCollector, cpuCore); }
+
+        // Publish live samples to a separate monitor thread
+        SampleRingBuffer liveSamples = null;
+        LiveMonitor monitor = null;
+        if (primary)
+        {
+            liveSamples = new SampleRingBuffer(LIVE_CAPACITY);
+            monitor = new LiveMonitor(mListener, liveSamples, mSleepUs, cpuCore);
+            monitor.start();
+        }
+
+        // Release all parallel threads at the same time
+        if (mStartBarrier != null)
+        {
+            try { mStartBarrier.await(); }
+            catch (InterruptedException | BrokenBarrierException e) { mInterrupted = true; }
+        }
+
+        // Adaptive runs stop as soon as the results are stable
+        ConvergenceDetector detector = null;
+        if (mTolerancePercent != BenchmarkConfiguration.NO_TOLERANCE && !mSoak) { detector = new ConvergenceDetector(mTolerancePercent); }
+        int stopReason = ResultReader.STOP_CYCLES;
+
+        // Periodic mode releases each cycle at a fixed deadline
+        long deadline = mLib.libGetTime() + sleepNs;
+        long startTimestamp = System.nanoTime();
+        long nextSnapshot = startTimestamp + mSnapshotIntervalNs;
+
+        // Correlate slow cycles with garbage collections
+        GcDetector gcDetector = new GcDetector();
+        mCollector.startGcTracking();
+
+        // Perform the actual benchmark, soak runs only stop at their deadline
+        for (int iteration = 0; mSoak || iteration < mCycles; iteration++)
+        {
+            // Sleep a bit, in periodic mode the sleep time is measured from the start of the period
+            if (!mPeriodic) { deadline = mLib.libGetTime() + sleepNs; }
+            long sleepTimeNs = sleepNs + mLib.libWaitUntil(deadline, waitStrategy, spinMarginNs);
+            boolean gcInSleep = gcDetector.poll();
+
+            // Do actual task
+            long timestamp = System.nanoTime();
+            mBenchmark.execute(mParameter);
+            long calcTimeNs = System.nanoTime() - timestamp;
+            boolean gcInCalc = gcDetector.poll();
+
+            // Record data without touching the file system
+            recorder.record(calcTimeNs, sleepTimeNs);
+            mCollector.add(calcTimeNs, sleepTimeNs - sleepNs);
+            if (gcInSleep || gcInCalc) { mCollector.addGcHit(calcTimeNs, sleepTimeNs - sleepNs, gcInCalc, gcInSleep); }
+            if (liveSamples != null) { liveSamples.offer(calcTimeNs, sleepTimeNs); }
+            if (snapshots != null)
+            {
+                snapshots.record(calcTimeNs, sleepTimeNs - sleepNs);
+                if (timestamp >= nextSnapshot && snapshots.snapshot(timestamp - startTimestamp)) { nextSnapshot += mSnapshotIntervalNs; }
+            }
+
+            // Allocate the next sentinel only after the cycle was recorded
+            gcDetector.rearm();
+
+            if (mPeriodic)
+            {
+                // Skip all periods which already passed instead of catching up with a burst
+                deadline += sleepNs;
+                long now = mLib.libGetTime();
+                if (now > deadline)
+                {
+                    long missed = (now - deadline) / sleepNs + 1;
+                    deadline += missed * sleepNs;
+                }
+            }
+
+            // Check the stop conditions
+            if (mInterrupted)
+            {
+                stopReason = ResultReader.STOP_CANCELED;
+                break;
+            }
+            if (detector != null && detector.add(calcTimeNs, sleepTimeNs - sleepNs, calcHistogram, sleepHistogram))
+            {
+                stopReason = ResultReader.STOP_CONVERGED;
+                break;
+            }
+            if (mSoak && timestamp - startTimestamp >= mDurationNs)
+            {
+                stopReason = ResultReader.STOP_DURATION;
+                break;
+            }
+            if (mMaxDurationNs > 0 && timestamp - startTimestamp > mMaxDurationNs)
+            {
+                stopReason = ResultReader.STOP_TIME_BUDGET;
+                break;
+            }
+        }
+
+        long elapsedTime = System.nanoTime() - startTimestamp;
+        if (monitor != null) { monitor.stop(); }
+        if (mCollector.getOverruns() > 0) { Log.w(TAG, "Deadline overruns: " + mCollector.getOverruns()); }
+        if (gcDetector.getCollections() > 0) { Log.d(TAG, "Garbage collections during the measurement: " + gcDetector.getCollections()); }
+        Log.d(TAG, "Measurement stopped: " + ResultReader.STOP_REASON_NAMES[stopReason]);
+
+        // Clean everything up
+        RealTimeUtils.unlockPowerLevel(powerLevel);
+
+        // Write all recorded data to file at once
+        recorder.finish();
+        if (snapshots != null) { snapshots.finish(elapsedTime); }
+        mCollector.setStopReason(stopReason);
+        mCollector.setWarmupCycles(warmup.getIterations());
+        mLib.libUpdateWarmupCycles(warmup.getIterations());
+        mCollector.setDroppedSamples(recorder.getDroppedSamples());
+        mLib.libUpdateDroppedSamples(recorder.getDroppedSamples());
+        if (stopReason != ResultReader.STOP_CYCLES) { mLib.libUpdateFlags(getFlags(stopReason)); }
+        if (mExportCsv) { exportCsv(); }
+        writeHistograms(calcHistogram, sleepHistogram);
+
+        String msgFinish = String.format(Locale.US, "Benchmark '%s' with case '%s' terminated", mBenchmark.getName(), mTestCase.getName());
+        Log.d(TAG, msgFinish);
+    }
+
+    /**
+     * @return Flags of the log header.
+     */
+    private int getFlags(int stopReason)
+    {
+        int flags = (mWaitStrategy << ResultReader.WAIT_STRATEGY_SHIFT) | (stopReason << ResultReader.STOP_REASON_SHIFT);
+        if (mPeriodic) { flags |= ResultReader.FLAG_PERIODIC; }
+        if (mSoak) { flags |= ResultReader.FLAG_SOAK; }
+        else if (mTolerancePercent != BenchmarkConfiguration.NO_TOLERANCE) { flags |= ResultReader.FLAG_ADAPTIVE; }
+        return flags;
+    }
+
+    private void exportCsv()
+    {
+        try
+        {
+            ResultReader reader = new ResultReader(mFileName);
+            try { reader.exportCsv(ResultReader.getCsvFileName(mFileName)); }
+            finally { reader.close(); }
+        }
+        catch (IOException e) { Log.e(TAG, "Failed to export the log file as CSV: " + e.getMessage()); }
+    }
+
+    private void writeHistograms(LatencyHistogram calcHistogram, LatencyHistogram sleepHistogram)
+    {
+        try
+        {
+            String fileName = ResultReader.getHistogramFileName(mFileName);
+            DataOutputStream out = new DataOutputStream(new FileOutputStream(fileName));
+            try
+            {
+                calcHistogram.write(out);
+                sleepHistogram.write(out);
+            }
+            finally { out.close(); }
+        }
+        catch (IOException e) { Log.e(TAG, "Failed to write the histograms: " + e.getMessage()); }
+    }
+
+    /**
+     * @return Folder of all result files.
+     */
+    static File getResultFolder()
+    {
+        // Assure the folder exists
+        File resultFolder = new File(Platform.get().getStorageDirectory(), RESULT_FOLDER);
+        if (!resultFolder.exists())
+        {
+            boolean res = resultFolder.mkdirs();
+            if (!res) { throw new RuntimeException("Cannot create the output directory"); }
+        }
+
+        return resultFolder;
+    }
+
+    /**
+     * @return Name of the log file.
+     */
+    public String getFileName()
+    {
+        return mFileName;
+    }
+
+    /**
+     * @return Results gathered during the measurement, complete once the executor returned.
+     */
+    public ResultCollector getCollector()
+    {
+        return mCollector;
+    }
+
+    public void cancel()
+    {
+        mInterrupted = true;
+    }
+}
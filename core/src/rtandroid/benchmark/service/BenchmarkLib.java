@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.service;
+
+import java.nio.ByteBuffer;
+
+public class BenchmarkLib
+{
+    static{ System.loadLibrary("benchmark-sleep"); }
+
+    private final String mFileName;
+    private boolean mLogWritable;
+
+    public BenchmarkLib(String filename, String benchmark, String testCase, int parameter, int sleep, int cycles, int flags)
+    {
+        System.loadLibrary("benchmark-log");
+        mFileName = filename;
+        mLogWritable = libInit(filename, benchmark, testCase, parameter, sleep, cycles, flags);
+    }
+
+    /**
+     * Creates the binary log file and writes the header with the given metadata.
+     * The layout is described in {@link rtandroid.benchmark.data.ResultReader}.
+     */
+    private native boolean libInit(String filename, String benchmark, String testCase, int parameter, int sleep, int cycles, int flags);
+
+    /**
+     * Appends all recorded samples to the log file in a single pass.
+     * Samples are stored as pairs of calculation and sleep time.
+     */
+    public void libWriteSamples(long[] samples, int count)
+    {
+        if (!mLogWritable) { return; }
+        mLogWritable = libAppendSamples(mFileName, samples, count);
+    }
+
+    /**
+     * Appends the first bytes of a direct buffer with packed samples to the log file using a single write.
+     * @return False if the data could not be written.
+     */
+    public boolean libWriteBuffer(ByteBuffer buffer, int length)
+    {
+        if (!mLogWritable) { return false; }
+        mLogWritable = libAppendBuffer(mFileName, buffer, length);
+        return mLogWritable;
+    }
+
+    /**
+     * Replaces the flags in the header, e.g. to store why the measurement ended.
+     */
+    public void libUpdateFlags(int flags)
+    {
+        if (!mLogWritable) { return; }
+        mLogWritable = libSetFlags(mFileName, flags);
+    }
+
+    /**
+     * Stores the number of iterations it took to reach a steady state before the measurement.
+     */
+    public void libUpdateWarmupCycles(int cycles)
+    {
+        if (!mLogWritable) { return; }
+        mLogWritable = libSetWarmupCycles(mFileName, cycles);
+    }
+
+    /**
+     * Stores the number of samples which are missing from the log, e.g. due to slow I/O.
+     */
+    public void libUpdateDroppedSamples(int samples)
+    {
+        if (!mLogWritable) { return; }
+        mLogWritable = libSetDroppedSamples(mFileName, samples);
+    }
+
+    // The native log keeps no state, so several executors can log in parallel
+    private native boolean libAppendSamples(String filename, long[] samples, int count);
+    private native boolean libAppendBuffer(String filename, ByteBuffer buffer, int length);
+    private native boolean libSetFlags(String filename, int flags);
+    private native boolean libSetWarmupCycles(String filename, int cycles);
+    private native boolean libSetDroppedSamples(String filename, int samples);
+
+    /**
+     * @return Current time of the monotonic clock in nanoseconds.
+     */
+    public native long libGetTime();
+
+    /**
+     * Waits until the given absolute time of the monotonic clock.
+     * @param strategy One of the wait strategies defined in {@link rtandroid.benchmark.data.TestCase}.
+     * @param spinMarginNs Time to spin before the deadline when using the hybrid strategy.
+     * @return Wake-up lateness in nanoseconds.
+     */
+    public native long libWaitUntil(long deadlineNs, int strategy, long spinMarginNs);
+}
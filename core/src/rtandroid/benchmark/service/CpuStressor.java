@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import rtandroid.benchmark.data.StressLoad;
+
+/**
+ * Keeps a core busy with integer arithmetic without touching memory.
+ */
+class CpuStressor extends Stressor
+{
+    private static final int CHUNK_ITERATIONS = 1000 * 1000;
+
+    // Published so the loop can't be removed by the compiler
+    private volatile long mSink;
+
+    CpuStressor(StressLoad load)
+    {
+        super(load);
+    }
+
+    @Override
+    protected void stress()
+    {
+        long value = mSink;
+        for (int i = 0; i < CHUNK_ITERATIONS; i++) { value = value * 6364136223846793005L + 1442695040888963407L; }
+        mSink = value;
+    }
+}
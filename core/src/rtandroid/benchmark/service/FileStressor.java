@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import rtandroid.benchmark.data.StressLoad;
+import rtandroid.benchmark.utils.Platform;
+
+/**
+ * Writes, syncs and reads back a scratch file to load the storage stack.
+ */
+class FileStressor extends Stressor
+{
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final int FILE_SIZE = 16 * 1024 * 1024;
+
+    private final File mFile;
+    private final byte[] mBlock = new byte[BLOCK_SIZE];
+    private RandomAccessFile mStream;
+
+    FileStressor(StressLoad load)
+    {
+        super(load);
+        mFile = new File(Platform.get().getCacheDirectory(), "stress_" + System.identityHashCode(this) + ".tmp");
+    }
+
+    @Override
+    protected void prepare() throws Exception
+    {
+        mStream = new RandomAccessFile(mFile, "rw");
+    }
+
+    @Override
+    protected void stress() throws Exception
+    {
+        // Write the whole file and force it to the storage
+        mStream.seek(0);
+        for (int offset = 0; offset < FILE_SIZE && isRunning(); offset += BLOCK_SIZE)
+        {
+            mBlock[0]++;
+            mStream.write(mBlock);
+        }
+        mStream.getFD().sync();
+
+        // Read it back, mostly hitting the page cache
+        mStream.seek(0);
+        while (isRunning() && mStream.read(mBlock) > 0) { }
+    }
+
+    @Override
+    protected void cleanup()
+    {
+        try { if (mStream != null) { mStream.close(); } }
+        catch (Exception ignored) { }
+
+        if (!mFile.delete()) { mFile.deleteOnExit(); }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Notices garbage collections without allocating or calling into the runtime.
+ *
+ * A sentinel object is only weakly reachable, so the collector clears the reference during the
+ * next collection. Polling is a single read, the new sentinel is allocated by {@link #rearm()}
+ * outside of the timed regions. Works on ART and on the JVM, where java.lang.management is not needed.
+ */
+class GcDetector
+{
+    private WeakReference<Object> mSentinel = createSentinel();
+    private boolean mCollected = false;
+    private int mCollections = 0;
+
+    /**
+     * Allocates nothing, so it may be called within a measured cycle.
+     * @return True if a collection finished since the last call, collections are only seen again after {@link #rearm()}.
+     */
+    boolean poll()
+    {
+        if (mCollected || mSentinel.get() != null) { return false; }
+
+        mCollected = true;
+        mCollections++;
+        return true;
+    }
+
+    /**
+     * Replaces a cleared sentinel, allocates only if a collection was seen.
+     */
+    void rearm()
+    {
+        if (!mCollected) { return; }
+
+        mSentinel = createSentinel();
+        mCollected = false;
+    }
+
+    /**
+     * @return Number of collections seen so far.
+     */
+    int getCollections()
+    {
+        return mCollections;
+    }
+
+    private static WeakReference<Object> createSentinel()
+    {
+        return new WeakReference<>(new Object());
+    }
+}
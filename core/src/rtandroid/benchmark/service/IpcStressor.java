@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+
+import rtandroid.benchmark.data.StressLoad;
+
+/**
+ * Bounces a message between two threads through kernel pipes, causing frequent wakeups and context switches.
+ */
+class IpcStressor extends Stressor
+{
+    private static final int CHUNK_ROUND_TRIPS = 1000;
+    private static final int MESSAGE_SIZE = 64;
+
+    private final ByteBuffer mMessage = ByteBuffer.allocateDirect(MESSAGE_SIZE);
+    // Closed by the thread stopping the stressor
+    private volatile Pipe mRequest;
+    private volatile Pipe mResponse;
+    private Thread mEcho;
+
+    IpcStressor(StressLoad load)
+    {
+        super(load);
+    }
+
+    @Override
+    protected void prepare() throws IOException
+    {
+        mRequest = Pipe.open();
+        mResponse = Pipe.open();
+
+        // The partner simply returns every message, it inherits the core and priority of the stressor thread
+        mEcho = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                ByteBuffer message = ByteBuffer.allocateDirect(MESSAGE_SIZE);
+                try
+                {
+                    while (isRunning())
+                    {
+                        transfer(mRequest.source(), message, mResponse.sink());
+                    }
+                }
+                catch (IOException ignored) { }
+            }
+        }, "IpcStressor-Echo");
+        mEcho.start();
+    }
+
+    @Override
+    protected void stress() throws IOException
+    {
+        for (int i = 0; i < CHUNK_ROUND_TRIPS && isRunning(); i++)
+        {
+            // Send the message and wait for it to come back
+            mMessage.clear();
+            while (mMessage.hasRemaining()) { mRequest.sink().write(mMessage); }
+            mMessage.clear();
+            while (mMessage.hasRemaining()) { if (mResponse.source().read(mMessage) < 0) { throw new IOException("Pipe closed"); } }
+        }
+    }
+
+    private static void transfer(Pipe.SourceChannel source, ByteBuffer message, Pipe.SinkChannel sink) throws IOException
+    {
+        message.clear();
+        while (message.hasRemaining()) { if (source.read(message) < 0) { throw new IOException("Pipe closed"); } }
+        message.flip();
+        while (message.hasRemaining()) { sink.write(message); }
+    }
+
+    @Override
+    protected void interrupt()
+    {
+        // Closing the pipes releases both threads from blocking reads
+        closePipe(mRequest);
+        closePipe(mResponse);
+    }
+
+    @Override
+    protected void cleanup()
+    {
+        interrupt();
+        if (mEcho == null) { return; }
+
+        try { mEcho.join(); }
+        catch (InterruptedException ignored) { }
+    }
+
+    private static void closePipe(Pipe pipe)
+    {
+        if (pipe == null) { return; }
+
+        try
+        {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+        catch (IOException ignored) { }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rtandroid.benchmark.service;
+
+import rtandroid.benchmark.data.SampleRingBuffer;
+import rtandroid.benchmark.utils.RealTimeUtils;
+
+/**
+ * Consumes the live samples of a running benchmark and reports the progress to the GUI.
+ * This keeps the callbacks out of the measuring thread.
+ */
+public class LiveMonitor implements Runnable
+{
+    private static final String TAG = LiveMonitor.class.getSimpleName();
+    private static final long GUI_UPDATE_TIME = 500 * 1000 * 1000; // in ns
+    private static final long POLL_TIME = 50; // in ms
+
+    private final ProgressListener mListener;
+    private final SampleRingBuffer mSamples;
+    private final long mSleepNs;
+    private final int mMeasuringCore;
+    private final Thread mThread;
+
+    private volatile boolean mRunning = true;
+
+    private long mCalcMax = 0;
+    private long mSleepMax = 0;
+
+    public LiveMonitor(ProgressListener listener, SampleRingBuffer samples, int sleepUs, int measuringCore)
+    {
+        mListener = listener;
+        mSamples = samples;
+        mSleepNs = sleepUs * 1000L;
+        mMeasuringCore = measuringCore;
+        mThread = new Thread(this, TAG);
+    }
+
+    public void start()
+    {
+        mThread.start();
+    }
+
+    public void stop()
+    {
+        mRunning = false;
+        try { mThread.join(); }
+        catch (InterruptedException ignored) { }
+    }
+
+    @Override
+    public void run()
+    {
+        // Stay out of the way of the measuring thread
+        RealTimeUtils.setBackgroundPriority();
+        RealTimeUtils.setCpuCoresExcept(mMeasuringCore);
+
+        long updateTimestamp = System.nanoTime();
+        while (mRunning)
+        {
+            try { Thread.sleep(POLL_TIME); }
+            catch (InterruptedException ignored) { }
+
+            // Drain everything measured so far
+            while (mSamples.next())
+            {
+                mCalcMax = Math.max(mCalcMax, mSamples.getCalculationTime());
+                mSleepMax = Math.max(mSleepMax, mSamples.getSleepTime() - mSleepNs);
+            }
+
+            // Report the progress
+            long time = System.nanoTime();
+            if ((time - updateTimestamp) >= GUI_UPDATE_TIME)
+            {
+                updateTimestamp = time;
+                mListener.onProgress((int) mSamples.getProducedCount(), mCalcMax, mSleepMax);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rtandroid.benchmark.service;
+
+/**
+ * Keeps all samples in a preallocated array and writes them to the log file at once.
+ */
+public class MemoryRecorder implements SampleRecorder
+{
+    private final BenchmarkLib mLib;
+    private final long[] mSamples;
+    private int mCount = 0;
+
+    public MemoryRecorder(BenchmarkLib lib, int cycles)
+    {
+        mLib = lib;
+        mSamples = new long[2 * cycles];
+    }
+
+    @Override
+    public void record(long calcTime, long sleepTime)
+    {
+        // Ignore everything beyond the reserved memory
+        if (2 * mCount >= mSamples.length) { return; }
+
+        mSamples[2 * mCount] = calcTime;
+        mSamples[2 * mCount + 1] = sleepTime;
+        mCount++;
+    }
+
+    @Override
+    public void finish()
+    {
+        mLib.libWriteSamples(mSamples, mCount);
+    }
+
+    @Override
+    public int getDroppedSamples()
+    {
+        // The array is sized for all cycles, nothing is dropped
+        return 0;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import rtandroid.benchmark.data.StressLoad;
+
+/**
+ * Streams through buffers much larger than the caches to saturate the memory bandwidth.
+ */
+class MemoryStressor extends Stressor
+{
+    private static final int BUFFER_SIZE = 4 * 1024 * 1024; // in longs, 32MB per buffer
+
+    private long[] mSource;
+    private long[] mTarget;
+
+    MemoryStressor(StressLoad load)
+    {
+        super(load);
+    }
+
+    @Override
+    protected void prepare()
+    {
+        mSource = new long[BUFFER_SIZE];
+        mTarget = new long[BUFFER_SIZE];
+        for (int i = 0; i < BUFFER_SIZE; i++) { mSource[i] = i; }
+    }
+
+    @Override
+    protected void stress()
+    {
+        // Copy back and forth, each pass reads and writes 64MB
+        System.arraycopy(mSource, 0, mTarget, 0, BUFFER_SIZE);
+        System.arraycopy(mTarget, 0, mSource, 0, BUFFER_SIZE);
+    }
+
+    @Override
+    protected void cleanup()
+    {
+        mSource = null;
+        mTarget = null;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.service;
+
+import java.util.Locale;
+import java.util.concurrent.CyclicBarrier;
+
+import rtandroid.benchmark.data.BenchmarkConfiguration;
+import rtandroid.benchmark.data.ResultCollector;
+import rtandroid.benchmark.data.TestCase;
+import rtandroid.benchmark.utils.Log;
+import rtandroid.benchmark.utils.RealTimeUtils;
+
+/**
+ * Runs a test case on several cores at once, one executor per core.
+ * Thread 0 runs at the priority of the test case, every further thread the configured step below.
+ * All executors are released together after their warmup, so they compete for shared resources.
+ */
+public class ParallelExecutor implements Runnable
+{
+    private static final String TAG = ParallelExecutor.class.getSimpleName();
+
+    private final TestCase mTestCase;
+    private final BenchmarkExecutor[] mExecutors;
+
+    public ParallelExecutor(ProgressListener listener, BenchmarkConfiguration config, TestCase testCase)
+    {
+        int threads = config.Threads;
+        mTestCase = testCase;
+        mExecutors = new BenchmarkExecutor[threads];
+
+        CyclicBarrier startBarrier = new CyclicBarrier(threads);
+        for (int thread = 0; thread < threads; thread++)
+        {
+            int cpuCore = TestCase.getFollowingCpuCore(testCase.getCpuCore(), thread);
+            int priority = getPriority(testCase.getRealtimePriority(), config.PriorityStep, thread);
+            mExecutors[thread] = new BenchmarkExecutor(listener, config, testCase, thread, cpuCore, priority, startBarrier);
+        }
+    }
+
+    /**
+     * @return Priority of the given thread, never below the lowest real-time priority.
+     */
+    private static int getPriority(int firstPriority, int step, int thread)
+    {
+        if (firstPriority == TestCase.NO_PRIORITY) { return TestCase.NO_PRIORITY; }
+        return Math.max(TestCase.PRIORITY_MIN, firstPriority - step * thread);
+    }
+
+    @Override
+    public void run()
+    {
+        Log.d(TAG, String.format(Locale.US, "Running case '%s' on %d threads", mTestCase.getName(), mExecutors.length));
+
+        // Keep the CPU power level constant for all threads
+        int powerLevel = mTestCase.getPowerLevel();
+        RealTimeUtils.lockPowerLevel(powerLevel);
+
+        Thread[] threads = new Thread[mExecutors.length];
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] = new Thread(mExecutors[i]);
+            threads[i].start();
+        }
+
+        for (Thread thread : threads)
+        {
+            try { thread.join(); }
+            catch (InterruptedException e) { cancel(); }
+        }
+
+        RealTimeUtils.unlockPowerLevel(powerLevel);
+    }
+
+    /**
+     * @return Log files of all threads, ordered by thread.
+     */
+    public String[] getFileNames()
+    {
+        String[] fileNames = new String[mExecutors.length];
+        for (int i = 0; i < fileNames.length; i++) { fileNames[i] = mExecutors[i].getFileName(); }
+        return fileNames;
+    }
+
+    /**
+     * @return Results of all threads, ordered by thread.
+     */
+    public ResultCollector[] getCollectors()
+    {
+        ResultCollector[] collectors = new ResultCollector[mExecutors.length];
+        for (int i = 0; i < collectors.length; i++) { collectors[i] = mExecutors[i].getCollector(); }
+        return collectors;
+    }
+
+    public void cancel()
+    {
+        for (BenchmarkExecutor executor : mExecutors) { executor.cancel(); }
+    }
+}
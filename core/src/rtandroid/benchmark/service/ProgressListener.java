@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+/**
+ * Receives the progress of a running test case.
+ * Methods are called from the benchmark threads and must return quickly.
+ */
+public interface ProgressListener
+{
+    /**
+     * Called once the warmup of a test case starts.
+     */
+    void onTestCaseStarted(String testCase);
+
+    /**
+     * Called periodically while the test case is measured.
+     * @param iterations Cycles measured so far.
+     * @param calcMax Highest calculation time so far in nanoseconds.
+     * @param sleepMax Highest sleep latency so far in nanoseconds.
+     */
+    void onProgress(int iterations, long calcMax, long sleepMax);
+}
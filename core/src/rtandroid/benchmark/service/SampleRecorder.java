@@ -13,40 +13,26 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package rtandroid.benchmark.service;
 
-public class BenchmarkLib
+/**
+ * Interface for every sink receiving the samples measured by the executor.
+ * Implementations must not block or allocate while recording.
+ */
+public interface SampleRecorder
 {
-    static{ System.loadLibrary("benchmark-sleep"); }
-
-    public BenchmarkLib(String filename)
-    {
-        System.loadLibrary("benchmark-log");
-        libInit(filename);
-    }
-
-    public BenchmarkLib() { }
-
-    private native void libInit(String filename);
-
-    /**
-     * Writes a long value to the log file.
-     */
-    public native void libWriteLong(long value);
-
     /**
-     * Writes the current timestamp to the log file.
+     * Stores the calculation and sleep time of a single cycle.
      */
-    public native void libWriteTime();
+    void record(long calcTime, long sleepTime);
 
     /**
-     * Writes the "carriage return" (\n) to the log file.
+     * Writes all outstanding samples, called after the measurement is done.
      */
-    public native void libWriteCR();
+    void finish();
 
     /**
-     * Sleeps the given number of milliseconds.
+     * @return Samples which were recorded but never written to the log.
      */
-    public native long libSleep(int ms);
+    int getDroppedSamples();
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+import rtandroid.benchmark.data.LatencyHistogram;
+import rtandroid.benchmark.data.ResultCollector;
+import rtandroid.benchmark.data.SnapshotLog;
+import rtandroid.benchmark.utils.Log;
+import rtandroid.benchmark.utils.RealTimeUtils;
+
+/**
+ * Collects the latency histograms of soak runs in intervals and appends them to a snapshot log.
+ *
+ * The measuring thread records into the active pair of histograms. At the end of an interval the pair
+ * is handed to a low-priority writer thread, which stores it and adds it to the collector. If the writer
+ * is still busy, the current interval simply continues, so memory stays bounded and nothing is lost.
+ */
+public class SnapshotWriter implements Runnable
+{
+    private static final String TAG = SnapshotWriter.class.getSimpleName();
+    private static final long IDLE_WAIT_TIME = 100 * 1000 * 1000; // in ns
+
+    private final ResultCollector mCollector;
+    private final int mMeasuringCore;
+    private final Thread mThread;
+    private DataOutputStream mOut;
+
+    private LatencyHistogram mCalcActive;
+    private LatencyHistogram mSleepActive;
+    private LatencyHistogram mCalcPending;
+    private LatencyHistogram mSleepPending;
+    private long mPendingElapsedTime;
+    private volatile boolean mPending = false;
+    private volatile boolean mRunning = true;
+
+    private int mSnapshots = 0;
+
+    /**
+     * @param collector Collector receiving the histograms of all intervals, it must not record them itself.
+     */
+    public SnapshotWriter(String fileName, ResultCollector collector, int measuringCore)
+    {
+        mCollector = collector;
+        mMeasuringCore = measuringCore;
+
+        LatencyHistogram calcTotal = collector.getCalculationHistogram();
+        LatencyHistogram sleepTotal = collector.getSleepHistogram();
+        mCalcActive = calcTotal.copyEmpty();
+        mSleepActive = sleepTotal.copyEmpty();
+        mCalcPending = calcTotal.copyEmpty();
+        mSleepPending = sleepTotal.copyEmpty();
+
+        // The totals are still collected without a log
+        try { mOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName))); }
+        catch (IOException e) { Log.e(TAG, "Failed to create the snapshot log: " + e.getMessage()); }
+
+        mThread = new Thread(this, TAG);
+        mThread.start();
+    }
+
+    /**
+     * Records the calculation time and the sleep latency of a single cycle.
+     */
+    public void record(long calcTime, long sleepLatency)
+    {
+        mCalcActive.record(calcTime);
+        mSleepActive.record(sleepLatency);
+    }
+
+    /**
+     * Ends the current interval without blocking.
+     * @param elapsedTime Time since the start of the measurement in nanoseconds.
+     * @return False if the writer is still busy and the interval continues.
+     */
+    public boolean snapshot(long elapsedTime)
+    {
+        if (mPending) { return false; }
+
+        LatencyHistogram calc = mCalcActive;
+        LatencyHistogram sleep = mSleepActive;
+        mCalcActive = mCalcPending;
+        mSleepActive = mSleepPending;
+        mCalcPending = calc;
+        mSleepPending = sleep;
+        mPendingElapsedTime = elapsedTime;
+
+        mPending = true;
+        LockSupport.unpark(mThread);
+        return true;
+    }
+
+    @Override
+    public void run()
+    {
+        // Stay out of the way of the measuring thread
+        RealTimeUtils.setBackgroundPriority();
+        RealTimeUtils.setCpuCoresExcept(mMeasuringCore);
+
+        while (mRunning || mPending)
+        {
+            if (!mPending)
+            {
+                LockSupport.parkNanos(this, IDLE_WAIT_TIME);
+                continue;
+            }
+
+            writeSnapshot(mPendingElapsedTime, mCalcPending, mSleepPending);
+            mPending = false;
+        }
+    }
+
+    private void writeSnapshot(long elapsedTime, LatencyHistogram calc, LatencyHistogram sleep)
+    {
+        if (mOut != null)
+        {
+            try
+            {
+                SnapshotLog.write(mOut, elapsedTime, calc, sleep);
+                mOut.flush();
+            }
+            catch (IOException e)
+            {
+                Log.e(TAG, "Failed to write snapshot: " + e.getMessage());
+                closeLog();
+            }
+        }
+
+        mCollector.addInterval(calc, sleep);
+        mCollector.getCalculationHistogram().add(calc);
+        mCollector.getSleepHistogram().add(sleep);
+        calc.reset();
+        sleep.reset();
+        mSnapshots++;
+    }
+
+    /**
+     * Stores the last interval and stops the writer, called after the measurement is done.
+     */
+    public void finish(long elapsedTime)
+    {
+        mRunning = false;
+        LockSupport.unpark(mThread);
+        try { mThread.join(); }
+        catch (InterruptedException ignored) { }
+
+        if (mCalcActive.getTotalCount() > 0) { writeSnapshot(elapsedTime, mCalcActive, mSleepActive); }
+        closeLog();
+
+        Log.d(TAG, "Stored " + mSnapshots + " snapshots");
+    }
+
+    private void closeLog()
+    {
+        if (mOut == null) { return; }
+
+        try { mOut.close(); }
+        catch (IOException e) { Log.e(TAG, "Failed to close the snapshot log: " + e.getMessage()); }
+        mOut = null;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import rtandroid.benchmark.data.StressLoad;
+
+/**
+ * Runs all stress loads of a test case for the duration of its measurement.
+ */
+public class StressGenerator
+{
+    private final List<Stressor> mStressors = new ArrayList<>();
+
+    public StressGenerator(List<StressLoad> loads)
+    {
+        for (StressLoad load : loads) { mStressors.add(Stressor.create(load)); }
+    }
+
+    public void start()
+    {
+        for (Stressor stressor : mStressors) { stressor.start(); }
+    }
+
+    public void stop()
+    {
+        for (Stressor stressor : mStressors) { stressor.stop(); }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import rtandroid.benchmark.data.StressLoad;
+import rtandroid.benchmark.utils.Log;
+import rtandroid.benchmark.utils.RealTimeUtils;
+
+/**
+ * Base of all threads generating background load while a test case is measured.
+ * Subclasses perform the load in small chunks, so the thread can be stopped at any time.
+ */
+public abstract class Stressor implements Runnable
+{
+    private static final String TAG = Stressor.class.getSimpleName();
+
+    private final StressLoad mLoad;
+    private final Thread mThread;
+
+    private volatile boolean mRunning = true;
+
+    protected Stressor(StressLoad load)
+    {
+        mLoad = load;
+        mThread = new Thread(this, TAG + "-" + load.getType());
+    }
+
+    /**
+     * @return Stressor generating the given load.
+     */
+    public static Stressor create(StressLoad load)
+    {
+        switch (load.getType())
+        {
+            case StressLoad.TYPE_CPU: return new CpuStressor(load);
+            case StressLoad.TYPE_MEMORY: return new MemoryStressor(load);
+            case StressLoad.TYPE_ALLOCATION: return new AllocationStressor(load);
+            case StressLoad.TYPE_FILE_IO: return new FileStressor(load);
+            case StressLoad.TYPE_IPC: return new IpcStressor(load);
+            default: throw new RuntimeException("Unknown stress load type");
+        }
+    }
+
+    public void start()
+    {
+        mThread.start();
+    }
+
+    public void stop()
+    {
+        mRunning = false;
+        interrupt();
+
+        try { mThread.join(); }
+        catch (InterruptedException ignored) { }
+    }
+
+    /**
+     * @return True until the stressor is stopped.
+     */
+    protected boolean isRunning()
+    {
+        return mRunning;
+    }
+
+    @Override
+    public void run()
+    {
+        RealTimeUtils.setPriority(mLoad.getRealtimePriority());
+        RealTimeUtils.setCpuCore(mLoad.getCpuCore());
+        Log.d(TAG, "Starting stress load: " + mLoad.getName());
+
+        long chunks = 0;
+        try
+        {
+            prepare();
+            while (mRunning)
+            {
+                stress();
+                chunks++;
+            }
+        }
+        catch (Exception e) { if (mRunning) { Log.e(TAG, "Stress load failed: " + e.getMessage()); } }
+        finally { cleanup(); }
+
+        Log.d(TAG, "Stopped stress load after " + chunks + " chunks: " + mLoad.getName());
+    }
+
+    /**
+     * Allocates all resources on the stressor thread.
+     */
+    protected void prepare() throws Exception { }
+
+    /**
+     * Generates a short burst of load.
+     */
+    protected abstract void stress() throws Exception;
+
+    /**
+     * Releases a blocked stressor when it is stopped.
+     */
+    protected void interrupt() { }
+
+    /**
+     * Releases all resources, called even if the stressor failed.
+     */
+    protected void cleanup() { }
+}
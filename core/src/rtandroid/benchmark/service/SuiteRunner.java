@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import rtandroid.benchmark.data.BenchmarkConfiguration;
+import rtandroid.benchmark.data.BenchmarkResult;
+import rtandroid.benchmark.data.SuiteDefinition;
+import rtandroid.benchmark.data.TestCase;
+import rtandroid.benchmark.utils.Log;
+
+/**
+ * Executes all runs of a suite unattended and consolidates the results into a single file.
+ * The file holds one result per configuration in the format of the results saved by the app.
+ */
+public class SuiteRunner
+{
+    private static final String TAG = SuiteRunner.class.getSimpleName();
+    private static final String FILE_TEMPLATE = "suite_%s_%s.json";
+
+    private final SuiteDefinition mSuite;
+    private final TestCaseRunner mRunner;
+    private final String mFileName;
+
+    public SuiteRunner(SuiteDefinition suite, TestCaseRunner runner)
+    {
+        mSuite = suite;
+        mRunner = runner;
+
+        String date = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        String name = suite.Name.replaceAll("\\s", "").replace('/', '-');
+        mFileName = new File(BenchmarkExecutor.getResultFolder(), String.format(Locale.US, FILE_TEMPLATE, name, date)).getAbsolutePath();
+    }
+
+    /**
+     * Runs the whole suite, the results are written after each configuration.
+     * @return Name of the consolidated result file.
+     */
+    public String run() throws IOException, InterruptedException
+    {
+        List<BenchmarkConfiguration> configs = mSuite.getConfigurations();
+        List<TestCase> testCases = mSuite.getTestCases();
+        Log.i(TAG, String.format(Locale.US, "Running suite '%s': %d configurations with %d test cases", mSuite.Name, configs.size(), testCases.size()));
+
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (int configIdx = 0; configIdx < configs.size() && !mRunner.isCanceled(); configIdx++)
+        {
+            BenchmarkConfiguration config = configs.get(configIdx);
+            Log.i(TAG, String.format(Locale.US, "Configuration %d of %d: %s", configIdx + 1, configs.size(), getResultName(config)));
+
+            BenchmarkResult result = new BenchmarkResult(getResultName(config));
+            runConfiguration(config, testCases, result);
+            results.add(result);
+
+            // Keep everything measured so far in case the suite is interrupted
+            writeResults(results);
+        }
+
+        Log.i(TAG, "Suite finished, results written to " + mFileName);
+        return mFileName;
+    }
+
+    private void runConfiguration(BenchmarkConfiguration config, List<TestCase> testCases, BenchmarkResult result) throws InterruptedException
+    {
+        for (TestCase testCase : testCases)
+        {
+            if (!mRunner.run(config, testCase, null, result)) { return; }
+
+            // Let the device cool down before the next run
+            Thread.sleep(mSuite.CooldownMs);
+        }
+    }
+
+    private String getResultName(BenchmarkConfiguration config)
+    {
+        return String.format(Locale.US, "%s: %s (p=%d, s=%d \u03bcs, c=%d)", mSuite.Name, config.getBenchmark().getName(), config.Parameter, config.SleepUs, config.Cycles);
+    }
+
+    private void writeResults(List<BenchmarkResult> results) throws IOException
+    {
+        BenchmarkResult[] resultArray = new BenchmarkResult[results.size()];
+        results.toArray(resultArray);
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(mFileName), "UTF-8");
+        try { new Gson().toJson(resultArray, BenchmarkResult[].class, writer); }
+        finally { writer.close(); }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import rtandroid.benchmark.data.BenchmarkConfiguration;
+import rtandroid.benchmark.data.BenchmarkResult;
+import rtandroid.benchmark.data.ResultCollector;
+import rtandroid.benchmark.data.TestCase;
+
+/**
+ * Measures test cases together with their stress loads and the idle baseline.
+ * Shared by the service on the device and the command-line runner on a host.
+ */
+public class TestCaseRunner
+{
+    private static final long COOLDOWN_TIME = 500; // in ms
+
+    private volatile BenchmarkExecutor mExecutor = null;
+    private volatile ParallelExecutor mParallelExecutor = null;
+    private volatile boolean mCanceled = false;
+
+    /**
+     * Measures a test case including its idle baseline and adds it to the given result.
+     * @param listener Receives the progress, may be null.
+     * @return False if the runner was canceled before the test case was finished.
+     */
+    public boolean run(BenchmarkConfiguration config, TestCase testCase, ProgressListener listener, BenchmarkResult result) throws InterruptedException
+    {
+        // Measure the idle system first, so the impact of the stress loads can be reported
+        ResultCollector[] idleCollectors = null;
+        if (testCase.hasStressLoads())
+        {
+            idleCollectors = measure(config, testCase.getIdleBaseline(), listener);
+            if (mCanceled) { return false; }
+        }
+
+        ResultCollector[] collectors = measure(config, testCase, listener);
+        if (mCanceled) { return false; }
+
+        result.addTestCase(config, testCase, collectors, idleCollectors);
+        return true;
+    }
+
+    /**
+     * Measures a single test case while its stress loads are running.
+     * @param listener Receives the progress, may be null.
+     * @return Results of all measuring threads.
+     */
+    public ResultCollector[] measure(BenchmarkConfiguration config, TestCase testCase, ProgressListener listener) throws InterruptedException
+    {
+        // The load is already running during the warmup
+        StressGenerator stress = new StressGenerator(testCase.getStressLoads());
+        stress.start();
+
+        ResultCollector[] collectors;
+        try
+        {
+            Runnable executor;
+            if (config.Threads > 1)
+            {
+                mParallelExecutor = new ParallelExecutor(listener, config, testCase);
+                executor = mParallelExecutor;
+            }
+            else
+            {
+                mExecutor = new BenchmarkExecutor(listener, config, testCase);
+                executor = mExecutor;
+            }
+
+            // A cancel request may have arrived before the executor was known
+            if (mCanceled) { cancelExecutors(); }
+
+            Thread thread = new Thread(executor);
+            thread.start();
+            thread.join();
+
+            collectors = (config.Threads > 1) ? mParallelExecutor.getCollectors() : new ResultCollector[] { mExecutor.getCollector() };
+        }
+        finally { stress.stop(); }
+
+        // Let the CPU cooldown
+        Thread.sleep(COOLDOWN_TIME);
+        return collectors;
+    }
+
+    /**
+     * Stops the running measurement, the runner stays canceled afterwards.
+     */
+    public void cancel()
+    {
+        mCanceled = true;
+        cancelExecutors();
+    }
+
+    public boolean isCanceled()
+    {
+        return mCanceled;
+    }
+
+    private void cancelExecutors()
+    {
+        BenchmarkExecutor executor = mExecutor;
+        ParallelExecutor parallelExecutor = mParallelExecutor;
+        if (executor != null) { executor.cancel(); }
+        if (parallelExecutor != null) { parallelExecutor.cancel(); }
+    }
+}
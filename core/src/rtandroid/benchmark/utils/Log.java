@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.utils;
+
+/**
+ * Logging of the benchmark core, mirroring android.util.Log.
+ * Messages are written by the installed {@link Platform}.
+ */
+public final class Log
+{
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    private Log() { }
+
+    public static void v(String tag, String msg)
+    {
+        Platform.get().log(VERBOSE, tag, msg);
+    }
+
+    public static void d(String tag, String msg)
+    {
+        Platform.get().log(DEBUG, tag, msg);
+    }
+
+    public static void i(String tag, String msg)
+    {
+        Platform.get().log(INFO, tag, msg);
+    }
+
+    public static void w(String tag, String msg)
+    {
+        Platform.get().log(WARN, tag, msg);
+    }
+
+    public static void e(String tag, String msg)
+    {
+        Platform.get().log(ERROR, tag, msg);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.utils;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Access to the system the benchmarks are running on.
+ *
+ * This implementation works on any JVM, e.g. on Linux hosts, where the real-time features of
+ * test cases are not available. The app installs a platform backed by Android and the RTAndroid API.
+ */
+public class Platform
+{
+    private static final String TAG = Platform.class.getSimpleName();
+    private static final String LOG_LEVELS = "??VDIWEA";
+
+    private static volatile Platform sPlatform = new Platform();
+
+    private final Set<String> mUnsupported = new HashSet<>();
+
+    public static Platform get()
+    {
+        return sPlatform;
+    }
+
+    public static void install(Platform platform)
+    {
+        sPlatform = platform;
+    }
+
+    /**
+     * Writes a message to the log.
+     * @param priority One of the priorities defined in {@link Log}.
+     */
+    public void log(int priority, String tag, String msg)
+    {
+        System.err.println(LOG_LEVELS.charAt(priority) + "/" + tag + ": " + msg);
+    }
+
+    /**
+     * @return Directory containing the folder with all result files.
+     */
+    public File getStorageDirectory()
+    {
+        return new File(System.getProperty("user.dir"));
+    }
+
+    /**
+     * @return Directory for temporary files.
+     */
+    public File getCacheDirectory()
+    {
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Lowers the priority of the calling helper thread, so it stays out of the way of the measurement.
+     */
+    public void setBackgroundPriority()
+    {
+        Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+    }
+
+    public void setPriority(int priority)
+    {
+        warnUnsupported("real-time priorities");
+    }
+
+    public void setCpuCore(int cpuCore)
+    {
+        warnUnsupported("core locking");
+    }
+
+    public void setCpuCoresExcept(int cpuCore)
+    {
+        warnUnsupported("core locking");
+    }
+
+    public void lockPowerLevel(int powerLevel)
+    {
+        warnUnsupported("power levels");
+    }
+
+    public void unlockPowerLevel(int powerLevel) { }
+
+    public Integer[] getIsolatedCpus()
+    {
+        return new Integer[0];
+    }
+
+    private void warnUnsupported(String feature)
+    {
+        synchronized (mUnsupported)
+        {
+            if (!mUnsupported.add(feature)) { return; }
+        }
+
+        Log.w(TAG, "Ignoring " + feature + ", not supported on this platform");
+    }
+}
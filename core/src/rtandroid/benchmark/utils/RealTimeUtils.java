@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.utils;
+
+import rtandroid.benchmark.data.TestCase;
+
+/**
+ * Applies the real-time settings of test cases to the calling thread using the installed {@link Platform}.
+ */
+public class RealTimeUtils
+{
+    public static void setPriority(int priority)
+    {
+        // nothing to set
+        if (priority == TestCase.NO_PRIORITY) { return; }
+
+        Platform.get().setPriority(priority);
+    }
+
+    public static void setCpuCore(int cpuCoreID)
+    {
+        // nothing to set
+        if (cpuCoreID == TestCase.NO_CORE_LOCK) { return; }
+
+        Platform.get().setCpuCore(cpuCoreID);
+    }
+
+    public static void setCpuCoresExcept(int cpuCoreID)
+    {
+        // nothing to avoid
+        if (cpuCoreID == TestCase.NO_CORE_LOCK) { return; }
+
+        Platform.get().setCpuCoresExcept(cpuCoreID);
+    }
+
+    public static void lockPowerLevel(int powerLevel)
+    {
+        // nothing to set
+        if (powerLevel == TestCase.NO_POWER_LEVEL) { return; }
+
+        Platform.get().lockPowerLevel(powerLevel);
+    }
+
+    public static void unlockPowerLevel(int powerLevel)
+    {
+        // nothing to reset
+        if (powerLevel == TestCase.NO_POWER_LEVEL) { return; }
+
+        Platform.get().unlockPowerLevel(powerLevel);
+    }
+
+    /**
+     * Lowers the priority of helper threads, e.g. of the log writer.
+     */
+    public static void setBackgroundPriority()
+    {
+        Platform.get().setBackgroundPriority();
+    }
+
+    public static Integer[] getIsolatedCpus()
+    {
+        return Platform.get().getIsolatedCpus();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConvergenceDetectorTest
+{
+    private static final long CALC_TIME = 2L * 1000 * 1000;
+    private static final long SLEEP_LATENCY = 50L * 1000;
+
+    @Test
+    public void stableRunsConverge()
+    {
+        ConvergenceDetector detector = new ConvergenceDetector(2);
+        LatencyHistogram calcHistogram = new LatencyHistogram();
+        LatencyHistogram sleepHistogram = new LatencyHistogram();
+        Random random = new Random(42);
+
+        int cycles = 0;
+        boolean converged = false;
+        while (!converged && cycles < 1000000)
+        {
+            // A little noise around constant values
+            long calcTime = CALC_TIME + random.nextInt(20000);
+            long sleepLatency = SLEEP_LATENCY + random.nextInt(5000);
+            calcHistogram.record(calcTime);
+            sleepHistogram.record(sleepLatency);
+            converged = detector.add(calcTime, sleepLatency, calcHistogram, sleepHistogram);
+            cycles++;
+        }
+
+        assertTrue(converged);
+        assertTrue("Converged too early after " + cycles + " cycles", cycles > 10000);
+        assertTrue("Converged too late after " + cycles + " cycles", cycles < 20000);
+    }
+
+    @Test
+    public void growingTailsNeverConverge()
+    {
+        ConvergenceDetector detector = new ConvergenceDetector(2);
+        LatencyHistogram calcHistogram = new LatencyHistogram();
+        LatencyHistogram sleepHistogram = new LatencyHistogram();
+
+        // Every sample is slower than the one before, so the p99 keeps moving
+        for (long cycle = 1; cycle <= 100000; cycle++)
+        {
+            long calcTime = CALC_TIME + cycle * 1000;
+            calcHistogram.record(calcTime);
+            sleepHistogram.record(SLEEP_LATENCY);
+            assertFalse(detector.add(calcTime, SLEEP_LATENCY, calcHistogram, sleepHistogram));
+        }
+    }
+
+    @Test
+    public void noisyMeansNeedAWiderTolerance()
+    {
+        // Rare but huge outliers keep the confidence interval of the mean wide
+        assertFalse(runWithOutliers(1));
+        assertTrue(runWithOutliers(50));
+    }
+
+    private static boolean runWithOutliers(int tolerancePercent)
+    {
+        ConvergenceDetector detector = new ConvergenceDetector(tolerancePercent);
+        LatencyHistogram calcHistogram = new LatencyHistogram();
+        LatencyHistogram sleepHistogram = new LatencyHistogram();
+        Random random = new Random(7);
+
+        for (int cycle = 0; cycle < 50000; cycle++)
+        {
+            long calcTime = (random.nextInt(1000) == 0) ? 1000 * CALC_TIME : CALC_TIME;
+            calcHistogram.record(calcTime);
+            sleepHistogram.record(SLEEP_LATENCY);
+            if (detector.add(calcTime, SLEEP_LATENCY, calcHistogram, sleepHistogram)) { return true; }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest
+{
+    private static final long SECOND = 1000L * 1000 * 1000;
+
+    @Test
+    public void percentilesStayWithinThePrecision()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100000; value++) { histogram.record(value * 1000); }
+
+        // Three significant digits allow a relative error of 0.1 %
+        assertWithinPrecision(50000L * 1000, histogram.getValueAtPercentile(50.0));
+        assertWithinPrecision(99000L * 1000, histogram.getValueAtPercentile(99.0));
+        assertWithinPrecision(99990L * 1000, histogram.getValueAtPercentile(99.99));
+        assertEquals(1000, histogram.getValueAtPercentile(0.0));
+        assertEquals(100000L * 1000, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void smallValuesAreExact()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) { histogram.record(value); }
+
+        assertEquals(500, histogram.getValueAtPercentile(50.0));
+        assertEquals(990, histogram.getValueAtPercentile(99.0));
+        assertEquals(1, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 0.0);
+    }
+
+    @Test
+    public void percentilesNeverLeaveTheRecordedRange()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(123456789);
+
+        assertEquals(123456789, histogram.getValueAtPercentile(0.0));
+        assertEquals(123456789, histogram.getValueAtPercentile(50.0));
+        assertEquals(123456789, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void valuesAboveTheRangeAreCounted()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.record(20 * SECOND);
+
+        assertEquals(2, histogram.getTotalCount());
+        assertEquals(20 * SECOND, histogram.getMax());
+    }
+
+    @Test
+    public void clampedValuesReportTheMaximum()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) { histogram.record(1000); }
+        histogram.record(15 * SECOND);
+        histogram.record(20 * SECOND);
+
+        assertEquals(1000, histogram.getValueAtPercentile(50.0));
+        assertEquals(20 * SECOND, histogram.getValueAtPercentile(99.0));
+        assertEquals(20 * SECOND, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void emptyHistogramReportsZero()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(99.0));
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void addMergesAllCounts()
+    {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = first.copyEmpty();
+        for (long value = 1; value <= 500; value++) { first.record(value); }
+        for (long value = 501; value <= 1000; value++) { second.record(value); }
+
+        first.add(second);
+
+        assertEquals(1000, first.getTotalCount());
+        assertEquals(1, first.getMin());
+        assertEquals(1000, first.getMax());
+        assertEquals(500, first.getValueAtPercentile(50.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addRejectsOtherConfigurations()
+    {
+        new LatencyHistogram().add(new LatencyHistogram(1, SECOND, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRejectsEmptyRange()
+    {
+        new LatencyHistogram(10, 15, 3);
+    }
+
+    @Test
+    public void resetForgetsAllValues()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(50.0));
+    }
+
+    @Test
+    public void encodingRestoresTheHistogram()
+    {
+        LatencyHistogram histogram = createSample();
+        LatencyHistogram decoded = LatencyHistogram.decode(histogram.encode());
+
+        assertHistogramEquals(histogram, decoded);
+        assertArrayEquals(histogram.encode(), decoded.encode());
+    }
+
+    @Test
+    public void encodingOnlyStoresUsedBuckets()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.record(1000);
+        histogram.record(5 * SECOND);
+
+        // Configuration and totals followed by index and count of both buckets
+        assertEquals(7 + 2 * 2, histogram.encode().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodingRejectsTruncatedData()
+    {
+        long[] encoded = createSample().encode();
+        long[] truncated = new long[encoded.length - 1];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+
+        LatencyHistogram.decode(truncated);
+    }
+
+    @Test
+    public void streamRestoresTheHistogram() throws IOException
+    {
+        LatencyHistogram histogram = createSample();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        histogram.write(out);
+        histogram.write(out);
+        out.close();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertHistogramEquals(histogram, LatencyHistogram.read(in));
+        assertHistogramEquals(histogram, LatencyHistogram.read(in));
+    }
+
+    private static LatencyHistogram createSample()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10000; value++) { histogram.record(value * value); }
+        return histogram;
+    }
+
+    private static void assertHistogramEquals(LatencyHistogram expected, LatencyHistogram actual)
+    {
+        assertEquals(expected.getTotalCount(), actual.getTotalCount());
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+        assertEquals(expected.getMean(), actual.getMean(), 0.0);
+        for (double percentile = 0.0; percentile <= 100.0; percentile += 0.5)
+        {
+            assertEquals(expected.getValueAtPercentile(percentile), actual.getValueAtPercentile(percentile));
+        }
+    }
+
+    private static void assertWithinPrecision(long expected, long actual)
+    {
+        assertTrue("Expected about " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 1000);
+    }
+}
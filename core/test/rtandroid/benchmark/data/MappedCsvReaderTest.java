@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappedCsvReaderTest
+{
+    private static final long DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void currentFilesAreReadInNanoseconds() throws IOException
+    {
+        String fileName = write(ResultReader.CSV_HEADER + "1500;250;\n2500;-30;\n");
+
+        MappedCsvReader reader = new MappedCsvReader(fileName);
+        try
+        {
+            assertSample(reader, 1500, 250);
+            assertSample(reader, 2500, -30);
+            assertFalse(reader.next());
+        }
+        finally { reader.close(); }
+    }
+
+    @Test
+    public void legacySleepTimesAreConvertedFromMicroseconds() throws IOException
+    {
+        String fileName = write("calculationTime;sleepTime\n1500;250\n2500;3\n");
+
+        MappedCsvReader reader = new MappedCsvReader(fileName);
+        try
+        {
+            assertSample(reader, 1500, 250000);
+            assertSample(reader, 2500, 3000);
+            assertFalse(reader.next());
+        }
+        finally { reader.close(); }
+    }
+
+    @Test
+    public void legacyHeadersWithSeparatorAreDetected() throws IOException
+    {
+        String fileName = write("calculationTime;sleepTime;\r\n1500;250;\r\n");
+
+        MappedCsvReader reader = new MappedCsvReader(fileName);
+        try
+        {
+            assertSample(reader, 1500, 250000);
+            assertFalse(reader.next());
+        }
+        finally { reader.close(); }
+    }
+
+    @Test
+    public void malformedLinesAreSkipped() throws IOException
+    {
+        String fileName = write(ResultReader.CSV_HEADER + "1;2;\nabc;4;\n\n5\n6;x;\n 7 ; 8 \r\n9;10");
+
+        MappedCsvReader reader = new MappedCsvReader(fileName);
+        try
+        {
+            assertSample(reader, 1, 2);
+            assertSample(reader, 7, 8);
+            assertSample(reader, 9, 10);
+            assertFalse(reader.next());
+        }
+        finally { reader.close(); }
+    }
+
+    @Test
+    public void linesCrossingAWindowAreReadCompletely() throws IOException
+    {
+        // Lines of different lengths put every byte of a line onto some window boundary
+        StringBuilder content = new StringBuilder(ResultReader.CSV_HEADER);
+        int count = 200;
+        for (int i = 0; i < count; i++) { content.append(i * 7919L).append(';').append(i).append(";\n"); }
+        String fileName = write(content.toString());
+
+        for (long windowSize = 32; windowSize <= 80; windowSize++)
+        {
+            MappedCsvReader reader = new MappedCsvReader(fileName, windowSize);
+            try
+            {
+                for (int i = 0; i < count; i++) { assertSample(reader, i * 7919L, i); }
+                assertFalse(reader.next());
+            }
+            finally { reader.close(); }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void linesLongerThanAWindowAreRejected() throws IOException
+    {
+        String fileName = write(ResultReader.CSV_HEADER + "1;2;\n123456789012345678;1;\n");
+
+        MappedCsvReader reader = new MappedCsvReader(fileName, 16);
+        try
+        {
+            while (reader.next()) { }
+        }
+        finally { reader.close(); }
+    }
+
+    @Test
+    public void lineCrossingTheDefaultWindowIsReadCompletely() throws IOException
+    {
+        File file = mFolder.newFile("large" + ResultReader.CSV_EXTENSION);
+        byte[] line = "1000000;20000;\n".getBytes(Charset.forName("US-ASCII"));
+        byte[] crossing = "123456789;987654321;\n".getBytes(Charset.forName("US-ASCII"));
+        byte[] header = ResultReader.CSV_HEADER.getBytes(Charset.forName("US-ASCII"));
+
+        // Fill the first window up to a few bytes before its end, so the next line crosses it
+        long lines = (DEFAULT_WINDOW_SIZE - header.length - 5) / line.length;
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1024 * 1024);
+        try
+        {
+            out.write(header);
+            for (long i = 0; i < lines; i++) { out.write(line); }
+            for (int i = header.length + (int) (lines * line.length); i < DEFAULT_WINDOW_SIZE - 5; i++) { out.write('\n'); }
+            out.write(crossing);
+            out.write(line);
+        }
+        finally { out.close(); }
+
+        MappedCsvReader reader = new MappedCsvReader(file.getAbsolutePath());
+        try
+        {
+            for (long i = 0; i < lines; i++)
+            {
+                assertTrue(reader.next());
+                assertEquals(1000000, reader.getCalculationTime());
+            }
+            assertSample(reader, 123456789, 987654321);
+            assertSample(reader, 1000000, 20000);
+            assertFalse(reader.next());
+        }
+        finally { reader.close(); }
+    }
+
+    @Test
+    public void headerOnlyFilesHaveNoSamples() throws IOException
+    {
+        MappedCsvReader reader = new MappedCsvReader(write(ResultReader.CSV_HEADER));
+        try { assertFalse(reader.next()); }
+        finally { reader.close(); }
+    }
+
+    private static void assertSample(MappedCsvReader reader, long calcTime, long sleepTime) throws IOException
+    {
+        assertTrue(reader.next());
+        assertEquals(calcTime, reader.getCalculationTime());
+        assertEquals(sleepTime, reader.getSleepTime());
+    }
+
+    private String write(String content) throws IOException
+    {
+        File file = mFolder.newFile();
+        OutputStream out = new FileOutputStream(file);
+        try { out.write(content.getBytes(Charset.forName("US-ASCII"))); }
+        finally { out.close(); }
+
+        return file.getAbsolutePath();
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResultReaderTest
+{
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void headerFieldsAreReadFromTheirOffsets() throws IOException
+    {
+        int flags = ResultReader.FLAG_PERIODIC | (TestCase.WAIT_HYBRID << ResultReader.WAIT_STRATEGY_SHIFT) | (ResultReader.STOP_TIME_BUDGET << ResultReader.STOP_REASON_SHIFT);
+        ByteBuffer log = createLog(ResultReader.VERSION, 2);
+        log.putInt(12, 250);
+        log.putInt(16, 1500);
+        log.putInt(20, 100000);
+        log.putInt(36, flags);
+        putString(log, 40, "Matrix-Tiled-double");
+        putString(log, 72, "RT Core 3");
+        log.putInt(120, 16384);
+        log.putInt(124, 4321);
+
+        ResultReader reader = new ResultReader(write(log));
+        try
+        {
+            assertEquals(250, reader.getParameter());
+            assertEquals(1500, reader.getSleep());
+            assertEquals(100000, reader.getCycles());
+            assertEquals(2, reader.getSampleCount());
+            assertTrue(reader.isPeriodic());
+            assertFalse(reader.isAdaptive());
+            assertFalse(reader.isSoak());
+            assertEquals(TestCase.WAIT_HYBRID, reader.getWaitStrategy());
+            assertEquals(ResultReader.STOP_TIME_BUDGET, reader.getStopReason());
+            assertEquals("Matrix-Tiled-double", reader.getBenchmarkName());
+            assertEquals("RT Core 3", reader.getTestCaseName());
+            assertEquals(16384, reader.getDroppedSamples());
+            assertEquals(4321, reader.getWarmupCycles());
+        }
+        finally { reader.close(); }
+    }
+
+    @Test
+    public void namesMayFillTheirWholeField() throws IOException
+    {
+        String benchmarkName = "0123456789abcdef0123456789abcdef";
+        String testCaseName = "0123456789abcdef0123456789abcdef0123456789abcdef";
+        ByteBuffer log = createLog(ResultReader.VERSION, 0);
+        putString(log, 40, benchmarkName);
+        putString(log, 72, testCaseName);
+        log.putInt(120, 3);
+        log.putInt(124, 7);
+
+        ResultReader reader = new ResultReader(write(log));
+        try
+        {
+            assertEquals(benchmarkName, reader.getBenchmarkName());
+            assertEquals(testCaseName, reader.getTestCaseName());
+            assertEquals(3, reader.getDroppedSamples());
+            assertEquals(7, reader.getWarmupCycles());
+        }
+        finally { reader.close(); }
+    }
+
+    @Test
+    public void samplesFollowTheHeader() throws IOException
+    {
+        // More samples than fit into the read buffer at once
+        int count = 10000;
+        ByteBuffer log = createLog(ResultReader.VERSION, count);
+        for (int i = 0; i < count; i++)
+        {
+            log.putLong(ResultReader.HEADER_SIZE + i * ResultReader.RECORD_SIZE, 1000L + i);
+            log.putLong(ResultReader.HEADER_SIZE + i * ResultReader.RECORD_SIZE + 8, -i);
+        }
+
+        ResultReader reader = new ResultReader(write(log));
+        try
+        {
+            for (int i = 0; i < count; i++)
+            {
+                assertTrue(reader.next());
+                assertEquals(1000L + i, reader.getCalculationTime());
+                assertEquals(-i, reader.getSleepTime());
+            }
+            assertFalse(reader.next());
+        }
+        finally { reader.close(); }
+    }
+
+    @Test
+    public void incompleteRecordsAreIgnored() throws IOException
+    {
+        // The writer was stopped in the middle of the second record
+        ByteBuffer log = createLog(ResultReader.VERSION, 2);
+        log.putLong(ResultReader.HEADER_SIZE, 42);
+        ByteBuffer truncated = ByteBuffer.allocate(ResultReader.HEADER_SIZE + ResultReader.RECORD_SIZE + 8);
+        log.limit(truncated.capacity());
+        truncated.put(log);
+        truncated.flip();
+
+        ResultReader reader = new ResultReader(write(truncated));
+        try
+        {
+            assertTrue(reader.next());
+            assertEquals(42, reader.getCalculationTime());
+            assertFalse(reader.next());
+        }
+        finally { reader.close(); }
+    }
+
+    @Test(expected = IOException.class)
+    public void otherVersionsAreRejected() throws IOException
+    {
+        new ResultReader(write(createLog(ResultReader.VERSION + 1, 0)));
+    }
+
+    @Test(expected = IOException.class)
+    public void otherTimeUnitsAreRejected() throws IOException
+    {
+        ByteBuffer log = createLog(ResultReader.VERSION, 0);
+        log.putInt(32, ResultReader.TIME_UNIT_NANOSECONDS + 1);
+        new ResultReader(write(log));
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFilesAreRejected() throws IOException
+    {
+        ByteBuffer log = createLog(ResultReader.VERSION, 0);
+        log.put(0, (byte) 'X');
+        new ResultReader(write(log));
+    }
+
+    @Test(expected = IOException.class)
+    public void shortFilesAreRejected() throws IOException
+    {
+        ByteBuffer log = createLog(ResultReader.VERSION, 0);
+        log.limit(ResultReader.HEADER_SIZE / 2);
+        new ResultReader(write(log));
+    }
+
+    @Test
+    public void fileNamesKeepTheirBase()
+    {
+        String fileName = "/data/benchmark_b=Fibonacci_p=10.dat";
+
+        assertEquals("/data/benchmark_b=Fibonacci_p=10" + ResultReader.CSV_EXTENSION, ResultReader.getCsvFileName(fileName));
+        assertEquals("/data/benchmark_b=Fibonacci_p=10" + ResultReader.HISTOGRAM_EXTENSION, ResultReader.getHistogramFileName(fileName));
+        assertEquals("/data/benchmark_b=Fibonacci_p=10" + ResultReader.SNAPSHOT_EXTENSION, ResultReader.getSnapshotFileName(fileName));
+    }
+
+    /**
+     * @return Log with a valid header and room for the given number of zero samples.
+     */
+    private static ByteBuffer createLog(int version, int count)
+    {
+        ByteBuffer log = ByteBuffer.allocate(ResultReader.HEADER_SIZE + count * ResultReader.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        log.put(0, (byte) 'R').put(1, (byte) 'T').put(2, (byte) 'B').put(3, (byte) 'L');
+        log.putInt(4, version);
+        log.putInt(8, ResultReader.HEADER_SIZE);
+        log.putLong(24, count);
+        log.putInt(32, ResultReader.TIME_UNIT_NANOSECONDS);
+        return log;
+    }
+
+    private static void putString(ByteBuffer log, int offset, String value)
+    {
+        byte[] bytes = value.getBytes(Charset.forName("UTF-8"));
+        for (int i = 0; i < bytes.length; i++) { log.put(offset + i, bytes[i]); }
+    }
+
+    private String write(ByteBuffer log) throws IOException
+    {
+        File file = mFolder.newFile("log" + ResultReader.FILE_EXTENSION);
+        FileOutputStream out = new FileOutputStream(file);
+        try { out.getChannel().write(log); }
+        finally { out.close(); }
+
+        return file.getAbsolutePath();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SampleRingBufferTest
+{
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBeAPowerOfTwo()
+    {
+        new SampleRingBuffer(6);
+    }
+
+    @Test
+    public void emptyBufferHasNoSamples()
+    {
+        SampleRingBuffer buffer = new SampleRingBuffer(4);
+
+        assertFalse(buffer.next());
+        assertEquals(0, buffer.getProducedCount());
+    }
+
+    @Test
+    public void samplesKeepTheirOrderAcrossTheWrap()
+    {
+        SampleRingBuffer buffer = new SampleRingBuffer(4);
+
+        // Three samples per round move the slots through the whole buffer several times
+        long expected = 0;
+        long produced = 0;
+        for (int round = 0; round < 10; round++)
+        {
+            for (int i = 0; i < 3; i++)
+            {
+                assertTrue(buffer.offer(produced, -produced));
+                produced++;
+            }
+
+            while (buffer.next())
+            {
+                assertEquals(expected, buffer.getCalculationTime());
+                assertEquals(-expected, buffer.getSleepTime());
+                expected++;
+            }
+        }
+
+        assertEquals(produced, expected);
+        assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void fullBufferDropsNewSamples()
+    {
+        SampleRingBuffer buffer = new SampleRingBuffer(4);
+        for (int i = 0; i < 4; i++) { assertTrue(buffer.offer(i, i)); }
+
+        assertFalse(buffer.offer(4, 4));
+        assertFalse(buffer.offer(5, 5));
+        assertEquals(2, buffer.getDroppedCount());
+        assertEquals(6, buffer.getProducedCount());
+
+        // The oldest samples survive
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(buffer.next());
+            assertEquals(i, buffer.getCalculationTime());
+        }
+        assertFalse(buffer.next());
+
+        // Consumed slots are available again
+        assertTrue(buffer.offer(6, 6));
+        assertTrue(buffer.next());
+        assertEquals(6, buffer.getCalculationTime());
+    }
+
+    @Test
+    public void recordsUseTheLogLayout()
+    {
+        SampleRingBuffer buffer = new SampleRingBuffer(2);
+        buffer.offer(11, 22);
+        buffer.offer(33, 44);
+
+        assertEquals(2 * ResultReader.RECORD_SIZE, buffer.getBuffer().capacity());
+        assertEquals(11, buffer.getBuffer().getLong(0));
+        assertEquals(22, buffer.getBuffer().getLong(8));
+        assertEquals(33, buffer.getBuffer().getLong(ResultReader.RECORD_SIZE));
+        assertEquals(44, buffer.getBuffer().getLong(ResultReader.RECORD_SIZE + 8));
+    }
+
+    @Test
+    public void consumerSeesAllSamplesOfAnotherThread() throws InterruptedException
+    {
+        final SampleRingBuffer buffer = new SampleRingBuffer(64);
+        final int count = 100000;
+
+        Thread producer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    while (!buffer.offer(i, 2L * i)) { Thread.yield(); }
+                }
+            }
+        });
+        producer.start();
+
+        // Dropped samples are retried, so every value arrives exactly once and in order
+        long expected = 0;
+        while (expected < count)
+        {
+            if (!buffer.next()) { continue; }
+            assertEquals(expected, buffer.getCalculationTime());
+            assertEquals(2 * expected, buffer.getSleepTime());
+            expected++;
+        }
+
+        producer.join();
+        assertFalse(buffer.next());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SteadyStateDetectorTest
+{
+    private static final long CALC_TIME = 1000L * 1000;
+
+    @Test
+    public void constantTimingIsSteadyAfterTheMinimum()
+    {
+        SteadyStateDetector detector = new SteadyStateDetector(10000);
+
+        int iterations = feedUntilDone(detector, 1.0);
+
+        assertTrue(detector.isSteady());
+        assertEquals(SteadyStateDetector.MIN_ITERATIONS, iterations);
+        assertEquals(iterations, detector.getIterations());
+    }
+
+    @Test
+    public void warmupEndsOnceTheTimingSettles()
+    {
+        SteadyStateDetector detector = new SteadyStateDetector(10000);
+
+        // Much slower and speeding up until the code is compiled
+        int slowIterations = 200;
+        for (int i = 0; i < slowIterations; i++) { assertFalse(detector.add(15 * CALC_TIME - i * 50000)); }
+        int iterations = slowIterations + feedUntilDone(detector, 1.0);
+
+        assertTrue(detector.isSteady());
+        assertTrue("Steady after " + iterations + " iterations", iterations <= slowIterations + SteadyStateDetector.MIN_ITERATIONS);
+    }
+
+    @Test
+    public void driftingTimingStopsAtTheMaximum()
+    {
+        SteadyStateDetector detector = new SteadyStateDetector(500);
+
+        // Ten percent slower with every window
+        int iterations = feedUntilDone(detector, 1.005);
+
+        assertFalse(detector.isSteady());
+        assertEquals(500, iterations);
+    }
+
+    @Test
+    public void maximumIsNeverBelowTheMinimum()
+    {
+        SteadyStateDetector detector = new SteadyStateDetector(1);
+
+        for (int i = 1; i < SteadyStateDetector.MIN_ITERATIONS; i++) { assertFalse(detector.add(CALC_TIME * (i % 2 + 1))); }
+        assertTrue(detector.add(CALC_TIME));
+    }
+
+    /**
+     * @return Iterations until the detector ended the warmup.
+     */
+    private static int feedUntilDone(SteadyStateDetector detector, double growth)
+    {
+        int iterations = 0;
+        double calcTime = CALC_TIME;
+        do
+        {
+            iterations++;
+            calcTime *= growth;
+        }
+        while (!detector.add((long) calcTime) && iterations < 100000);
+
+        return iterations;
+    }
+}
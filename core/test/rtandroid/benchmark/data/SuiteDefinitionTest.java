@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package rtandroid.benchmark.data;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+
+public class SuiteDefinitionTest
+{
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void testCasesKeepTheirValues() throws IOException
+    {
+        SuiteDefinition suite = SuiteDefinition.read(writeSuite("{ \"mName\": \"RT\", \"mPriority\": 90, \"mPowerLevel\": 100, \"mCpuCore\": 0, \"mWaitStrategy\": 1 }"));
+        TestCase testCase = suite.getTestCases().get(0);
+
+        assertEquals("RT", testCase.getName());
+        assertEquals(90, testCase.getRealtimePriority());
+        assertEquals(100, testCase.getPowerLevel());
+        assertEquals(TestCase.NO_CORE_LOCK, testCase.getCpuCore());
+        assertEquals(TestCase.WAIT_SPIN, testCase.getWaitStrategy());
+    }
+
+    @Test
+    public void missingSpinMarginGetsTheDefault() throws IOException
+    {
+        SuiteDefinition suite = SuiteDefinition.read(writeSuite("{ \"mName\": \"RT\", \"mPriority\": -1, \"mPowerLevel\": -1, \"mWaitStrategy\": 3 }"));
+        assertEquals(TestCase.SPIN_MARGIN_DEFAULT, suite.getTestCases().get(0).getSpinMargin());
+    }
+
+    @Test(expected = IOException.class)
+    public void illegalPriorityIsRejected() throws IOException
+    {
+        SuiteDefinition.read(writeSuite("{ \"mName\": \"RT\", \"mPriority\": 150, \"mPowerLevel\": -1 }"));
+    }
+
+    @Test(expected = IOException.class)
+    public void illegalWaitStrategyIsRejected() throws IOException
+    {
+        SuiteDefinition.read(writeSuite("{ \"mName\": \"RT\", \"mPriority\": -1, \"mPowerLevel\": -1, \"mWaitStrategy\": 7 }"));
+    }
+
+    @Test(expected = IOException.class)
+    public void illegalStressLoadIsRejected() throws IOException
+    {
+        SuiteDefinition.read(writeSuite("{ \"mName\": \"RT\", \"mPriority\": -1, \"mPowerLevel\": -1, \"mStressLoads\": [ { \"mType\": 9, \"mPriority\": -1 } ] }"));
+    }
+
+    private String writeSuite(String testCase) throws IOException
+    {
+        String json = "{ \"Benchmarks\": [ \"Fibonacci-Iterative\" ], \"Parameters\": [ 10 ], \"SleepUs\": [ 1000 ], \"Cycles\": [ 1000 ], \"TestCases\": [ " + testCase + " ] }";
+        File file = mFolder.newFile("suite.json");
+        OutputStream out = new FileOutputStream(file);
+        try { out.write(json.getBytes(Charset.forName("UTF-8"))); }
+        finally { out.close(); }
+
+        return file.getAbsolutePath();
+    }
+}
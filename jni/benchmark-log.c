@@ -22,84 +22,183 @@
 #include <sched.h>
 #include <time.h>
 #include <unistd.h>
+#include <limits.h>
+#include <fcntl.h>
 #include <sys/select.h>
 
+#ifdef __ANDROID__
 #include <android/log.h>
 #define LOGE(...) __android_log_print(ANDROID_LOG_ERROR, "BenchmarkJNI", __VA_ARGS__)
+#else
+// Host builds of the core log to stderr
+#define LOGE(fmt, ...) fprintf(stderr, "E/BenchmarkJNI: " fmt "\n", ##__VA_ARGS__)
+#endif
 
 #include "benchmark-log.h"
 
 // ---------------------------------------------------
 
-const char* mLogFilename;
-int mIsLogWritable = 0;
+#if __BYTE_ORDER__ != __ORDER_LITTLE_ENDIAN__
+#error "The binary log format expects a little-endian target"
+#endif
+
+#define LOG_BUFFER_SIZE (64 * 1024)
+
+#define LOG_MAGIC "RTBL"
+#define LOG_VERSION 1
+#define LOG_HEADER_SIZE 128
+#define LOG_COUNT_OFFSET 24
+#define LOG_TIME_UNIT_OFFSET 32
+#define LOG_TIME_UNIT_NS 1
+#define LOG_FLAGS_OFFSET 36
+#define LOG_BENCHMARK_OFFSET 40
+#define LOG_BENCHMARK_SIZE 32
+#define LOG_TEST_CASE_OFFSET 72
+#define LOG_TEST_CASE_SIZE 48
+#define LOG_DROPPED_OFFSET 120
+#define LOG_WARMUP_OFFSET 124
 
 // ---------------------------------------------------
 
-JNIEXPORT void JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libInit(JNIEnv* env, jobject obj, jstring filename)
+static void lib_putInt(unsigned char* dest, jint val)
 {
-    // get char* to filename
-    mLogFilename = (*env)->GetStringUTFChars(env, filename, 0);
+    memcpy(dest, &val, sizeof(jint));
+}
+
+static void lib_putString(JNIEnv* env, unsigned char* dest, jstring str, size_t size)
+{
+    // copy the string and keep it zero terminated
+    const char* chars = (*env)->GetStringUTFChars(env, str, 0);
+    strncpy((char*) dest, chars, size - 1);
+    (*env)->ReleaseStringUTFChars(env, str, chars);
+}
+
+static jlong lib_getSampleCount(off_t fileSize)
+{
+    // the sample count follows from the file size, so no state is shared between logs
+    return (fileSize - LOG_HEADER_SIZE) / (2 * sizeof(jlong));
+}
+
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libInit(JNIEnv* env, jobject obj, jstring filename, jstring benchmark, jstring testCase, jint parameter, jint sleep, jint cycles, jint flags)
+{
+    jlong sampleCount = 0;
+
+    // prepare the header with all metadata of this test case
+    unsigned char header[LOG_HEADER_SIZE];
+    memset(header, 0, LOG_HEADER_SIZE);
+    memcpy(header, LOG_MAGIC, 4);
+    lib_putInt(header + 4, LOG_VERSION);
+    lib_putInt(header + 8, LOG_HEADER_SIZE);
+    lib_putInt(header + 12, parameter);
+    lib_putInt(header + 16, sleep);
+    lib_putInt(header + 20, cycles);
+    memcpy(header + LOG_COUNT_OFFSET, &sampleCount, sizeof(jlong));
+    lib_putInt(header + LOG_TIME_UNIT_OFFSET, LOG_TIME_UNIT_NS);
+    lib_putInt(header + LOG_FLAGS_OFFSET, flags);
+    lib_putString(env, header + LOG_BENCHMARK_OFFSET, benchmark, LOG_BENCHMARK_SIZE);
+    lib_putString(env, header + LOG_TEST_CASE_OFFSET, testCase, LOG_TEST_CASE_SIZE);
 
     // check if the logfile can be created
-	FILE* file = fopen(mLogFilename, "w");
-	if (file == NULL)
-	{
-		mIsLogWritable = 0;
+    const char* path = (*env)->GetStringUTFChars(env, filename, 0);
+    FILE* file = fopen(path, "wb");
+    (*env)->ReleaseStringUTFChars(env, filename, path);
+    if (file == NULL)
+    {
         LOGE("Failed to create the log file!");
-	}
-	else
-	{
-		fprintf(file, "calculationTime;sleepTime\n");
-		fclose(file);
-		mIsLogWritable = 1;
+        return JNI_FALSE;
     }
+
+    int isWritable = (fwrite(header, LOG_HEADER_SIZE, 1, file) == 1);
+    fclose(file);
+    return isWritable ? JNI_TRUE : JNI_FALSE;
 }
 
-JNIEXPORT void JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libWriteLong(JNIEnv* env, jobject obj, jlong val)
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libAppendSamples(JNIEnv* env, jobject obj, jstring filename, jlongArray samples, jint count)
 {
-	// nothing to do, if we can't save our results :(
-	if (mIsLogWritable == 0) { return; }
-
-	// try to open the file and write the data
-	FILE* file = fopen(mLogFilename, "a+");
-	if (file == NULL) { mIsLogWritable = 0; }
-	else
-	{
-		fprintf(file, "%ld;", (long int)val);
-		fclose(file);
-	}
+    // try to open the file only once for all recorded samples
+    const char* path = (*env)->GetStringUTFChars(env, filename, 0);
+    FILE* file = fopen(path, "r+b");
+    (*env)->ReleaseStringUTFChars(env, filename, path);
+    if (file == NULL) { return JNI_FALSE; }
+    setvbuf(file, NULL, _IOFBF, LOG_BUFFER_SIZE);
+
+    // samples are stored as pairs of calculation and sleep time
+    jlong* values = (*env)->GetLongArrayElements(env, samples, NULL);
+    fseek(file, 0, SEEK_END);
+    size_t written = fwrite(values, 2 * sizeof(jlong), count, file);
+    (*env)->ReleaseLongArrayElements(env, samples, values, JNI_ABORT);
+
+    // keep the sample count in the header up to date
+    jlong sampleCount = lib_getSampleCount(ftell(file));
+    fseek(file, LOG_COUNT_OFFSET, SEEK_SET);
+    fwrite(&sampleCount, sizeof(jlong), 1, file);
+    fclose(file);
+
+    if (written != (size_t) count)
+    {
+        LOGE("Failed to write all samples to the log file!");
+        return JNI_FALSE;
+    }
+
+    return JNI_TRUE;
 }
 
-JNIEXPORT void JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libWriteTime(JNIEnv* env, jobject obj)
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libAppendBuffer(JNIEnv* env, jobject obj, jstring filename, jobject buffer, jint length)
 {
-    // nothing to do, if we can't save our results :(
-    if (mIsLogWritable == 0) { return; }
+    // the buffer already contains packed records, so a single write is enough
+    void* data = (*env)->GetDirectBufferAddress(env, buffer);
+    const char* path = (*env)->GetStringUTFChars(env, filename, 0);
+    int fd = open(path, O_WRONLY);
+    (*env)->ReleaseStringUTFChars(env, filename, path);
+    if (fd < 0) { return JNI_FALSE; }
+    if (data == NULL) { close(fd); return JNI_FALSE; }
+
+    // O_APPEND can't be used as it would also redirect the header update
+    off_t end = lseek(fd, 0, SEEK_END);
+    ssize_t written = write(fd, data, length);
+    if (written > 0)
+    {
+        // keep the sample count in the header up to date
+        jlong sampleCount = lib_getSampleCount(end + written);
+        pwrite(fd, &sampleCount, sizeof(jlong), LOG_COUNT_OFFSET);
+    }
+    close(fd);
+
+    if (written != length)
+    {
+        LOGE("Failed to write the sample buffer to the log file!");
+        return JNI_FALSE;
+    }
+
+    return JNI_TRUE;
+}
+
+static jboolean lib_setHeaderInt(JNIEnv* env, jstring filename, off_t offset, jint val)
+{
+    const char* path = (*env)->GetStringUTFChars(env, filename, 0);
+    int fd = open(path, O_WRONLY);
+    (*env)->ReleaseStringUTFChars(env, filename, path);
+    if (fd < 0) { return JNI_FALSE; }
 
-    // get time stamp
-    struct timespec now;
-    clock_gettime(CLOCK_MONOTONIC, &now);
+    unsigned char value[sizeof(jint)];
+    lib_putInt(value, val);
+    ssize_t written = pwrite(fd, value, sizeof(jint), offset);
+    close(fd);
 
-    // and calculate the passed time in us
-    jlong time = 0;
-    time += now.tv_sec * 1000000;
-    time += now.tv_nsec / 1000;
+    return (written == sizeof(jint)) ? JNI_TRUE : JNI_FALSE;
+}
 
-    // use existing functions for writing
-    Java_rtandroid_benchmark_service_BenchmarkLib_libWriteLong(env, obj, time);
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libSetFlags(JNIEnv* env, jobject obj, jstring filename, jint flags)
+{
+    return lib_setHeaderInt(env, filename, LOG_FLAGS_OFFSET, flags);
 }
 
-JNIEXPORT void JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libWriteCR(JNIEnv* env, jobject obj)
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libSetWarmupCycles(JNIEnv* env, jobject obj, jstring filename, jint cycles)
 {
-    // nothing to do, if we can't save our results :(
-    if (mIsLogWritable == 0) { return; }
+    return lib_setHeaderInt(env, filename, LOG_WARMUP_OFFSET, cycles);
+}
 
-    // try to open the file and break the line
-    FILE* file = fopen(mLogFilename, "a+");
-    if (file == NULL) { mIsLogWritable = 0; }
-    else
-    {
-        fprintf(file, "\n");
-        fclose(file);
-    }
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libSetDroppedSamples(JNIEnv* env, jobject obj, jstring filename, jint samples)
+{
+    return lib_setHeaderInt(env, filename, LOG_DROPPED_OFFSET, samples);
 }
@@ -23,10 +23,12 @@
 extern "C" {
 #endif
 
-JNIEXPORT void JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libInit(JNIEnv* env, jobject obj, jstring filename);
-JNIEXPORT void JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libWriteLong(JNIEnv* env, jobject obj, jlong val);
-JNIEXPORT void JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libWriteTime(JNIEnv* env, jobject obj);
-JNIEXPORT void JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libWriteCR(JNIEnv* env, jobject obj);
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libInit(JNIEnv* env, jobject obj, jstring filename, jstring benchmark, jstring testCase, jint parameter, jint sleep, jint cycles, jint flags);
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libAppendSamples(JNIEnv* env, jobject obj, jstring filename, jlongArray samples, jint count);
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libAppendBuffer(JNIEnv* env, jobject obj, jstring filename, jobject buffer, jint length);
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libSetFlags(JNIEnv* env, jobject obj, jstring filename, jint flags);
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libSetWarmupCycles(JNIEnv* env, jobject obj, jstring filename, jint cycles);
+JNIEXPORT jboolean JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libSetDroppedSamples(JNIEnv* env, jobject obj, jstring filename, jint samples);
 
 #ifdef __cplusplus
 }
@@ -24,46 +24,90 @@
 #include <unistd.h>
 #include <sys/select.h>
 
+#ifdef __ANDROID__
 #include <android/log.h>
 #define LOGE(...) __android_log_print(ANDROID_LOG_ERROR, "BenchmarkJNI", __VA_ARGS__)
+#else
+// Host builds of the core log to stderr
+#define LOGE(fmt, ...) fprintf(stderr, "E/BenchmarkJNI: " fmt "\n", ##__VA_ARGS__)
+#endif
 
 #include "benchmark-sleep.h"
 
 // ---------------------------------------------------
 
-void lib_getTimeDiff(struct timespec* start, struct timespec* end, struct timespec* diff)
+static jlong lib_getTime()
 {
-    if (end->tv_nsec > start->tv_nsec)
-    {
-		diff->tv_sec = end->tv_sec - start->tv_sec;
-		diff->tv_nsec = end->tv_nsec - start->tv_nsec;
-	}
-	else
-	{
-		diff->tv_sec = end->tv_sec - start->tv_sec - 1;
-		diff->tv_nsec = end->tv_nsec - start->tv_nsec + 1000000000;
-    }
+    struct timespec now;
+    clock_gettime(CLOCK_MONOTONIC, &now);
+    return (jlong) now.tv_sec * 1000000000 + now.tv_nsec;
 }
 
-JNIEXPORT jlong JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libSleep(JNIEnv* env, jobject obj, jint ms)
+static void lib_sleepUntil(jlong deadline)
 {
-    // get the current time stamp
-    struct timespec start;
-    clock_gettime(CLOCK_MONOTONIC, &start);
+    struct timespec wakeup;
+    wakeup.tv_sec = deadline / 1000000000;
+    wakeup.tv_nsec = deadline % 1000000000;
+
+    int ret;
+    do { ret = clock_nanosleep(CLOCK_MONOTONIC, TIMER_ABSTIME, &wakeup, NULL); }
+    while (ret == EINTR);
+
+    if (ret != 0) { LOGE("clock_nanosleep failed: %s", strerror(ret)); }
+}
 
-    // sleep the predefined time
-    usleep(ms * 1000);
+static void lib_spinUntil(jlong deadline)
+{
+    while (lib_getTime() < deadline) { }
+}
 
-    // get another time stamp
-    struct timespec stop, diff;
-    clock_gettime(CLOCK_MONOTONIC, &stop);
-    lib_getTimeDiff(&start, &stop, &diff);
+JNIEXPORT jlong JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libGetTime(JNIEnv* env, jobject obj)
+{
+    return lib_getTime();
+}
 
-    // and calculate the passed time in us
-    jlong time = 0;
-    time += diff.tv_sec * 1000000;
-    time += diff.tv_nsec / 1000;
+JNIEXPORT jlong JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libWaitUntil(JNIEnv* env, jobject obj, jlong deadline, jint strategy, jlong spinMargin)
+{
+    jlong remaining = deadline - lib_getTime();
+    switch (strategy)
+    {
+        case WAIT_SLEEP:
+        {
+            // relative sleep for the remaining time, as a plain usleep() would do
+            if (remaining <= 0) { break; }
+
+            struct timespec period;
+            period.tv_sec = remaining / 1000000000;
+            period.tv_nsec = remaining % 1000000000;
+
+            // signals interrupt the sleep, continue with the time left
+            int ret;
+            do { ret = nanosleep(&period, &period); }
+            while (ret != 0 && errno == EINTR);
+
+            if (ret != 0) { LOGE("nanosleep failed: %s", strerror(errno)); }
+            break;
+        }
+
+        case WAIT_SPIN:
+            lib_spinUntil(deadline);
+            break;
+
+        case WAIT_ABSOLUTE:
+            lib_sleepUntil(deadline);
+            break;
+
+        case WAIT_HYBRID:
+            // sleep until shortly before the deadline and spin for the rest
+            if (remaining > spinMargin) { lib_sleepUntil(deadline - spinMargin); }
+            lib_spinUntil(deadline);
+            break;
+
+        default:
+            LOGE("Unknown wait strategy %d", strategy);
+            break;
+    }
 
-    // pass it back to the caller
-    return time;
+    // pass the wake-up lateness back to the caller
+    return lib_getTime() - deadline;
 }
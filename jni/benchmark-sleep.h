@@ -18,11 +18,18 @@
 #ifndef BENCHMARK_H
 #define BENCHMARK_H
 
+// wait strategies, see rtandroid.benchmark.data.TestCase
+#define WAIT_SLEEP 0
+#define WAIT_SPIN 1
+#define WAIT_ABSOLUTE 2
+#define WAIT_HYBRID 3
+
 #ifdef __cplusplus
 extern "C" {
 #endif
 
-JNIEXPORT jlong JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libSleep(JNIEnv* env, jobject obj, jint us);
+JNIEXPORT jlong JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libGetTime(JNIEnv* env, jobject obj);
+JNIEXPORT jlong JNICALL Java_rtandroid_benchmark_service_BenchmarkLib_libWaitUntil(JNIEnv* env, jobject obj, jlong deadline, jint strategy, jlong spinMargin);
 
 #ifdef __cplusplus
 }
@@ -16,6 +16,7 @@
 
 package rtandroid.benchmark;
 
+import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
@@ -30,28 +31,21 @@
 
 import com.google.gson.Gson;
 
-import java.io.IOException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
-import rtandroid.benchmark.data.BenchmarkConfiguration;
 import rtandroid.benchmark.data.BenchmarkResult;
 import rtandroid.benchmark.data.BenchmarkResultAdapter;
-import rtandroid.benchmark.data.ResultAnalyzer;
 import rtandroid.benchmark.data.TestCase;
+import rtandroid.benchmark.service.BenchmarkService;
 import rtandroid.benchmark.ui.BenchmarkFragment;
 import rtandroid.benchmark.ui.ResultFragment;
+import rtandroid.benchmark.utils.AndroidPlatform;
 
 public class MainActivity extends AppCompatActivity implements BenchmarkFragment.OnFragmentInteractionListener, ResultFragment.OnFragmentInteractionListener
 {
-    private static final String KEY_CONFIG = "benchmark_config";
     private static final String KEY_TEST_CASES = "test_cases";
-    private static final String KEY_RESULT = "current_result";
     private static final String KEY_RESULTS = "all_results";
 
     private static final TestCase[] DEFAULT_TEST_CASES;
@@ -66,8 +60,6 @@ public class MainActivity extends AppCompatActivity implements BenchmarkFragment
     }
 
     private ViewPager mViewPager;
-    private BenchmarkConfiguration mBenchmarkConfig;
-    private BenchmarkResult mCurrentResult;
     private List<BenchmarkResult> mResults;
     private BenchmarkResultAdapter mAdapter;
 
@@ -75,6 +67,7 @@ public class MainActivity extends AppCompatActivity implements BenchmarkFragment
     protected void onCreate(Bundle savedInstanceState)
     {
         super.onCreate(savedInstanceState);
+        AndroidPlatform.install(this);
         setContentView(R.layout.activity_main);
 
         Toolbar toolbar = (Toolbar) findViewById(R.id.actionbar);
@@ -88,53 +81,24 @@ protected void onCreate(Bundle savedInstanceState)
 
         TabLayout tabs = (TabLayout) findViewById(R.id.tabs);
         tabs.setupWithViewPager(mViewPager);
-    }
-
-    @Override
-    protected void onRestoreInstanceState(Bundle savedInstanceState)
-    {
-        super.onRestoreInstanceState(savedInstanceState);
-
-        mBenchmarkConfig = savedInstanceState.getParcelable(KEY_CONFIG);
-        mCurrentResult = savedInstanceState.getParcelable(KEY_RESULT);
-    }
-
-    @Override
-    protected void onSaveInstanceState(Bundle outState)
-    {
-        super.onSaveInstanceState(outState);
 
-        outState.putParcelable(KEY_CONFIG, mBenchmarkConfig);
-        outState.putParcelable(KEY_RESULT, mCurrentResult);
-    }
-
-    @Override
-    public void onBenchmarkStart(BenchmarkConfiguration config)
-    {
-        mBenchmarkConfig = config;
-
-        DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss", Locale.getDefault());
-        String name = mBenchmarkConfig.getBenchmark().getName();
-        String resultName = String.format("%s (%s)", dateFormat.format(new Date()), name);
-        mCurrentResult = new BenchmarkResult(resultName);
-    }
-
-    @Override
-    public void onTestCaseCompleted(TestCase testCase, String fileName)
-    {
-        try
+        // Suites are started from the command line, e.g. for overnight runs:
+        // adb shell am start -n rtandroid.benchmark/.MainActivity --es suite /sdcard/Benchmark/nightly.json
+        String suiteFileName = getIntent().getStringExtra(BenchmarkService.EXTRA_SUITE);
+        if (savedInstanceState == null && suiteFileName != null)
         {
-            ResultAnalyzer analyzer = new ResultAnalyzer(mBenchmarkConfig, fileName);
-            mCurrentResult.addResult(testCase.getName(), analyzer.getResults());
+            Intent intent = new Intent(this, BenchmarkService.class);
+            intent.setAction(BenchmarkService.ACTION_RUN_SUITE);
+            intent.putExtra(BenchmarkService.EXTRA_SUITE, suiteFileName);
+            startService(intent);
         }
-        catch (IOException e) { throw new RuntimeException("Failed to read log file of test case", e); }
     }
 
     @Override
-    public void onBenchmarkFinished()
+    public void onBenchmarkFinished(BenchmarkResult result)
     {
         // Add result to list
-        mResults.add(mCurrentResult);
+        mResults.add(result);
         mAdapter.notifyDataSetChanged();
 
         // Save results
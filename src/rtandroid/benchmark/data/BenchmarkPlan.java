@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.data;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything needed to execute a benchmark: its configuration and the test cases to run in order.
+ * A plan is handed to the service once, instead of one request per test case.
+ */
+public class BenchmarkPlan implements Parcelable
+{
+    private final String mName;
+    private final BenchmarkConfiguration mConfig;
+    private final List<TestCase> mTestCases;
+
+    public BenchmarkPlan(String name, BenchmarkConfiguration config, Collection<TestCase> testCases)
+    {
+        mName = name;
+        mConfig = new BenchmarkConfiguration(config);
+        mTestCases = new ArrayList<>(testCases);
+    }
+
+    /**
+     * @return Name of the result.
+     */
+    public String getName()
+    {
+        return mName;
+    }
+
+    public BenchmarkConfiguration getConfiguration()
+    {
+        return mConfig;
+    }
+
+    public List<TestCase> getTestCases()
+    {
+        return Collections.unmodifiableList(mTestCases);
+    }
+
+    //
+    // Parcelable
+    //
+
+    @Override
+    public int describeContents()
+    {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags)
+    {
+        dest.writeString(mName);
+
+        // Configuration and test cases are plain data, serialize them as JSON like everywhere else
+        Gson gson = new Gson();
+        dest.writeString(gson.toJson(mConfig, BenchmarkConfiguration.class));
+
+        TestCase[] testCases = new TestCase[mTestCases.size()];
+        mTestCases.toArray(testCases);
+        dest.writeString(gson.toJson(testCases, TestCase[].class));
+    }
+
+    public static final Parcelable.Creator<BenchmarkPlan> CREATOR = new Parcelable.Creator<BenchmarkPlan>()
+    {
+        public BenchmarkPlan createFromParcel(Parcel in)
+        {
+            return new BenchmarkPlan(in);
+        }
+
+        public BenchmarkPlan[] newArray(int size)
+        {
+            return new BenchmarkPlan[size];
+        }
+    };
+
+    private BenchmarkPlan(Parcel in)
+    {
+        mName = in.readString();
+
+        Gson gson = new Gson();
+        mConfig = gson.fromJson(in.readString(), BenchmarkConfiguration.class);
+
+        TestCase[] testCases = gson.fromJson(in.readString(), TestCase[].class);
+        mTestCases = new ArrayList<>(Arrays.asList(testCases));
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright (C) 2017 RTAndroid Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package rtandroid.benchmark.service;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+import android.util.Log;
+
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import rtandroid.benchmark.data.BenchmarkPlan;
+import rtandroid.benchmark.data.BenchmarkResult;
+
+/**
+ * Entry point of the GUI for running benchmarks.
+ *
+ * Plans are submitted to the {@link BenchmarkService}, which measures them in its own process.
+ * Each plan is represented by a {@link Handle} reporting the progress to a listener and collecting
+ * the results of all test cases as soon as they are measured. All methods and callbacks run on the main thread.
+ */
+public class BenchmarkEngine implements ServiceConnection
+{
+    private static final String TAG = BenchmarkEngine.class.getSimpleName();
+
+    private static BenchmarkEngine sInstance;
+
+    private final Context mContext;
+    private final Messenger mReplyMessenger = new Messenger(new ReplyHandler());
+    private final Map<Integer, Handle> mHandles = new HashMap<>();
+    private final List<Message> mPendingMessages = new ArrayList<>();
+
+    private Messenger mService = null;
+    private boolean mBound = false;
+    private int mNextPlanId = 1;
+
+    public static BenchmarkEngine getInstance(Context context)
+    {
+        if (sInstance == null) { sInstance = new BenchmarkEngine(context.getApplicationContext()); }
+        return sInstance;
+    }
+
+    private BenchmarkEngine(Context context)
+    {
+        mContext = context;
+    }
+
+    /**
+     * Queues the plan for execution after all previously submitted ones.
+     */
+    public Handle submit(BenchmarkPlan plan)
+    {
+        Handle handle = new Handle(mNextPlanId++, plan);
+        mHandles.put(handle.mId, handle);
+
+        Bundle data = new Bundle();
+        data.putParcelable(BenchmarkService.KEY_PLAN, plan);
+        Message msg = Message.obtain(null, BenchmarkService.MSG_SUBMIT, handle.mId, 0);
+        msg.setData(data);
+        send(msg);
+
+        return handle;
+    }
+
+    /**
+     * @return Handle of a submitted plan or null if it is unknown, e.g. after its result was delivered.
+     */
+    public Handle getHandle(int id)
+    {
+        return mHandles.get(id);
+    }
+
+    private void send(Message msg)
+    {
+        msg.replyTo = mReplyMessenger;
+
+        // Messages are delivered once the service is connected
+        if (mService == null)
+        {
+            mPendingMessages.add(msg);
+            bind();
+            return;
+        }
+
+        try { mService.send(msg); }
+        catch (RemoteException e) { Log.e(TAG, "Failed to reach the benchmark service: " + e.getMessage()); }
+    }
+
+    private void bind()
+    {
+        if (mBound) { return; }
+
+        Intent intent = new Intent(mContext, BenchmarkService.class);
+        mBound = mContext.bindService(intent, this, Context.BIND_AUTO_CREATE);
+        if (!mBound) { Log.e(TAG, "Failed to bind the benchmark service"); }
+    }
+
+    /**
+     * Releases the service once all plans are done, it stops as soon as it is idle.
+     */
+    private void unbindIfIdle()
+    {
+        if (!mBound || !mPendingMessages.isEmpty()) { return; }
+        for (Handle handle : mHandles.values())
+        {
+            if (!handle.mFinished) { return; }
+        }
+
+        mContext.unbindService(this);
+        mBound = false;
+        mService = null;
+    }
+
+    @Override
+    public void onServiceConnected(ComponentName name, IBinder binder)
+    {
+        mService = new Messenger(binder);
+
+        List<Message> messages = new ArrayList<>(mPendingMessages);
+        mPendingMessages.clear();
+        for (Message msg : messages) { send(msg); }
+    }
+
+    @Override
+    public void onServiceDisconnected(ComponentName name)
+    {
+        mService = null;
+
+        // The service process died, its plans are lost
+        Log.e(TAG, "Benchmark service disconnected");
+        for (Handle handle : new ArrayList<>(mHandles.values()))
+        {
+            if (!handle.mFinished) { handle.onPlanFinished(true); }
+        }
+    }
+
+    /**
+     * Dispatches the messages of the service to the handles.
+     */
+    private class ReplyHandler extends Handler
+    {
+        ReplyHandler()
+        {
+            super(Looper.getMainLooper());
+        }
+
+        @Override
+        public void handleMessage(Message msg)
+        {
+            Handle handle = mHandles.get(msg.arg1);
+            if (handle == null) { return; }
+
+            Bundle data = msg.getData();
+            switch (msg.what)
+            {
+                case BenchmarkService.MSG_TEST_CASE_STARTED:
+                    handle.onTestCaseStarted(data.getString(BenchmarkService.KEY_TEST_CASE_NAME));
+                    break;
+
+                case BenchmarkService.MSG_PROGRESS:
+                    handle.onProgress(msg.arg2, data.getLong(BenchmarkService.KEY_CALC_MAX), data.getLong(BenchmarkService.KEY_SLEEP_MAX));
+                    break;
+
+                case BenchmarkService.MSG_TEST_CASE_FINISHED:
+                    BenchmarkResult result = new Gson().fromJson(data.getString(BenchmarkService.KEY_RESULT), BenchmarkResult.class);
+                    handle.onTestCaseFinished(data.getString(BenchmarkService.KEY_TEST_CASE_NAME), result);
+                    break;
+
+                case BenchmarkService.MSG_PLAN_FINISHED:
+                    handle.onPlanFinished(msg.arg2 != 0);
+                    break;
+
+                default:
+                    super.handleMessage(msg);
+            }
+        }
+    }
+
+    /**
+     * A submitted plan, keeping track of its progress and results.
+     */
+    public class Handle
+    {
+        private final int mId;
+        private final BenchmarkPlan mPlan;
+        private final BenchmarkResult mResult;
+        private Listener mListener;
+
+        private String mTestCaseName = "";
+        private int mCasesCompleted = 0;
+        private int mIterations = 0;
+        private long mSleepMax = 0;
+        private boolean mFinished = false;
+        private boolean mCanceled = false;
+
+        private Handle(int id, BenchmarkPlan plan)
+        {
+            mId = id;
+            mPlan = plan;
+            mResult = new BenchmarkResult(plan.getName());
+        }
+
+        public int getId()
+        {
+            return mId;
+        }
+
+        public BenchmarkPlan getPlan()
+        {
+            return mPlan;
+        }
+
+        /**
+         * @param listener Receives further progress, a finished plan is reported immediately.
+         */
+        public void setListener(Listener listener)
+        {
+            mListener = listener;
+            if (mFinished && mListener != null) { deliverFinished(); }
+        }
+
+        /**
+         * Stops the running test case, the plan finishes without further results.
+         */
+        public void cancel()
+        {
+            if (mFinished) { return; }
+            send(Message.obtain(null, BenchmarkService.MSG_CANCEL, mId, 0));
+        }
+
+        /**
+         * @return Results of all test cases measured so far.
+         */
+        public BenchmarkResult getResult()
+        {
+            return mResult;
+        }
+
+        public String getTestCaseName()
+        {
+            return mTestCaseName;
+        }
+
+        public int getCasesCompleted()
+        {
+            return mCasesCompleted;
+        }
+
+        /**
+         * @return Cycles measured of the current test case.
+         */
+        public int getIterations()
+        {
+            return mIterations;
+        }
+
+        /**
+         * @return Highest sleep latency of the current test case in nanoseconds.
+         */
+        public long getSleepMax()
+        {
+            return mSleepMax;
+        }
+
+        public boolean isFinished()
+        {
+            return mFinished;
+        }
+
+        public boolean isCanceled()
+        {
+            return mCanceled;
+        }
+
+        private void onTestCaseStarted(String testCase)
+        {
+            mTestCaseName = testCase;
+            mIterations = 0;
+            mSleepMax = 0;
+            if (mListener != null) { mListener.onTestCaseStarted(this, testCase); }
+        }
+
+        private void onProgress(int iterations, long calcMax, long sleepMax)
+        {
+            mIterations = iterations;
+            mSleepMax = sleepMax;
+            if (mListener != null) { mListener.onProgress(this, iterations, calcMax, sleepMax); }
+        }
+
+        private void onTestCaseFinished(String testCase, BenchmarkResult result)
+        {
+            mResult.addAll(result);
+            mCasesCompleted++;
+            mIterations = 0;
+            if (mListener != null) { mListener.onTestCaseFinished(this, testCase); }
+        }
+
+        private void onPlanFinished(boolean canceled)
+        {
+            mFinished = true;
+            mCanceled = canceled;
+            unbindIfIdle();
+
+            // Nobody waits for the result of a canceled plan
+            if (mListener != null) { deliverFinished(); }
+            else if (canceled) { mHandles.remove(mId); }
+        }
+
+        private void deliverFinished()
+        {
+            // The result is handed over only once
+            mHandles.remove(mId);
+            mListener.onPlanFinished(this, mCanceled);
+        }
+    }
+
+    /**
+     * Receives the progress of a plan on the main thread.
+     */
+    public interface Listener
+    {
+        void onTestCaseStarted(Handle handle, String testCase);
+
+        void onProgress(Handle handle, int iterations, long calcMax, long sleepMax);
+
+        void onTestCaseFinished(Handle handle, String testCase);
+
+        void onPlanFinished(Handle handle, boolean canceled);
+    }
+}
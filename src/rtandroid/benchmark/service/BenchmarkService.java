@@ -14,51 +14,85 @@
  * limitations under the License.
  */
 
+
 package rtandroid.benchmark.service;
 
-import android.app.IntentService;
+import android.app.Service;
+import android.content.Context;
 import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.PowerManager;
+import android.os.RemoteException;
 import android.util.Log;
 
 import com.google.gson.Gson;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import rtandroid.benchmark.benchmarks.Benchmark;
-import rtandroid.benchmark.benchmarks.BenchmarkManager;
+import rtandroid.benchmark.data.BenchmarkConfiguration;
+import rtandroid.benchmark.data.BenchmarkPlan;
+import rtandroid.benchmark.data.BenchmarkResult;
+import rtandroid.benchmark.data.SuiteDefinition;
 import rtandroid.benchmark.data.TestCase;
+import rtandroid.benchmark.utils.AndroidPlatform;
 
-public class BenchmarkService extends IntentService
+/**
+ * Executes benchmark plans one after another in its own process, away from the garbage of the GUI.
+ * Clients bind to the service through {@link BenchmarkEngine}, which submits plans and receives
+ * the progress and the results of every test case as messages.
+ */
+public class BenchmarkService extends Service
 {
-    public static final String ACTION_START = "rtandroid.benchmark.ACTION_START";
-    public static final String ACTION_UPDATE = "rtandroid.benchmark.ACTION_UPDATE";
-    public static final String ACTION_FINISHED = "rtandroid.benchmark.ACTION_FINISHED";
-
-    public static final String EXTRA_BENCHMARK = "benchmark";
-    public static final String EXTRA_PARAMETER = "parameter";
-    public static final String EXTRA_CYCLES = "cycles";
-    public static final String EXTRA_SLEEP = "sleep";
-    public static final String EXTRA_TEST_CASE = "test_case";
-
-    public static final String EXTRA_TEST_CASE_NAME = "test_case_name";
-    public static final String EXTRA_ITERATIONS = "iterations";
+    public static final String ACTION_RUN_SUITE = "rtandroid.benchmark.ACTION_RUN_SUITE";
+    public static final String ACTION_SUITE_FINISHED = "rtandroid.benchmark.ACTION_SUITE_FINISHED";
+
+    public static final String EXTRA_SUITE = "suite";
     public static final String EXTRA_FILENAME = "filename";
 
+    // Messages from the client, arg1 is the id of the plan
+    static final int MSG_SUBMIT = 1;
+    static final int MSG_CANCEL = 2;
+
+    // Messages to the client, arg1 is the id of the plan
+    static final int MSG_TEST_CASE_STARTED = 10;
+    static final int MSG_PROGRESS = 11;
+    static final int MSG_TEST_CASE_FINISHED = 12;
+    static final int MSG_PLAN_FINISHED = 13;
+
+    static final String KEY_PLAN = "plan";
+    static final String KEY_RESULT = "result";
+    static final String KEY_TEST_CASE_NAME = "test_case_name";
+    static final String KEY_CALC_MAX = "calc_max";
+    static final String KEY_SLEEP_MAX = "sleep_max";
+
     private static final String TAG = BenchmarkService.class.getSimpleName();
-    private static final int EXTRA_NOT_FOUND = -1;
 
-    private volatile BenchmarkExecutor mExecutor = null;
+    private final Handler mHandler = new IncomingHandler();
+    private final Messenger mMessenger = new Messenger(mHandler);
+    private final ExecutorService mWorker = Executors.newSingleThreadExecutor();
+    private final Map<Integer, PlanJob> mJobs = new HashMap<>();
+    private int mLastStartId = 0;
+    private int mPendingTasks = 0;
 
-    public BenchmarkService()
-    {
-        super(TAG);
-        setIntentRedelivery(true);
-    }
+    private volatile TestCaseRunner mCurrentRunner = null;
+    private volatile boolean mCanceled = false;
 
     @Override
     public void onCreate()
     {
         super.onCreate();
+        AndroidPlatform.install(this);
 
         Log.d(TAG, "BenchmarkService created");
     }
@@ -69,50 +103,242 @@ public void onDestroy()
         super.onDestroy();
 
         // Signal stopping
-        if (mExecutor != null) { mExecutor.cancel(); }
+        mCanceled = true;
+        TestCaseRunner runner = mCurrentRunner;
+        if (runner != null) { runner.cancel(); }
+        mWorker.shutdownNow();
 
         Log.d(TAG, "BenchmarkService destroyed");
     }
 
     @Override
-    protected void onHandleIntent(Intent intent)
+    public IBinder onBind(Intent intent)
+    {
+        return mMessenger.getBinder();
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId)
     {
-        // Extract arguments
-        int benchmarkIdx = intent.getIntExtra(EXTRA_BENCHMARK, EXTRA_NOT_FOUND);
-        int parameter = intent.getIntExtra(EXTRA_PARAMETER, EXTRA_NOT_FOUND);
-        int cycles = intent.getIntExtra(EXTRA_CYCLES, EXTRA_NOT_FOUND);
-        int sleep = intent.getIntExtra(EXTRA_SLEEP, EXTRA_NOT_FOUND);
+        mLastStartId = startId;
 
-        if (benchmarkIdx == EXTRA_NOT_FOUND || parameter == EXTRA_NOT_FOUND || sleep == EXTRA_NOT_FOUND || cycles == EXTRA_NOT_FOUND)
+        // Suites are executed unattended and restarted if the service gets killed
+        if (intent != null && ACTION_RUN_SUITE.equals(intent.getAction()))
         {
-            throw new RuntimeException("Missing extras in Intent from Activity!");
+            final String suiteFileName = intent.getStringExtra(EXTRA_SUITE);
+            queue(new Runnable()
+            {
+                @Override
+                public void run() { runSuite(suiteFileName); }
+            });
+            return START_REDELIVER_INTENT;
         }
 
-        Benchmark[] benchmarks = BenchmarkManager.getBenchmarks();
-        if (benchmarkIdx >= benchmarks.length)
+        // Plans only keep the service running until they are done
+        return START_NOT_STICKY;
+    }
+
+    /**
+     * Handles the requests of the clients on the main thread.
+     */
+    private class IncomingHandler extends Handler
+    {
+        @Override
+        public void handleMessage(Message msg)
         {
-            throw new RuntimeException("Invalid benchmark index in Intent from Activity!");
+            switch (msg.what)
+            {
+                case MSG_SUBMIT:
+                    Bundle data = msg.getData();
+                    data.setClassLoader(BenchmarkPlan.class.getClassLoader());
+                    BenchmarkPlan plan = data.getParcelable(KEY_PLAN);
+                    submit(new PlanJob(msg.arg1, plan, msg.replyTo));
+                    break;
+
+                case MSG_CANCEL:
+                    PlanJob job = mJobs.get(msg.arg1);
+                    if (job != null) { job.cancel(); }
+                    break;
+
+                default:
+                    super.handleMessage(msg);
+            }
         }
+    }
 
-        // Parse the test configuration
-        Gson gson = new Gson();
-        String jsonTestCase = intent.getStringExtra(EXTRA_TEST_CASE);
-        TestCase testCase = gson.fromJson(jsonTestCase, TestCase.class);
+    private void submit(PlanJob job)
+    {
+        // Keep running while the plan is executed, even if the client unbinds
+        startService(new Intent(this, BenchmarkService.class));
+
+        mJobs.put(job.mId, job);
+        queue(job);
+    }
+
+    private void queue(final Runnable task)
+    {
+        mPendingTasks++;
+        mWorker.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try { task.run(); }
+                finally { mHandler.post(mTaskFinished); }
+            }
+        });
+    }
+
+    private final Runnable mTaskFinished = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            // Forget finished plans and stop once nothing is left
+            Iterator<PlanJob> it = mJobs.values().iterator();
+            while (it.hasNext())
+            {
+                if (it.next().mFinished) { it.remove(); }
+            }
 
-        // Don't waste too much time with a long warmup
-        if (testCase.getName().startsWith("Warmup")) { cycles = cycles / 3; }
-        Log.d(TAG, String.format(Locale.US, "Next test case: '%s' with %d cycles", testCase.getName(), cycles));
+            mPendingTasks--;
+            if (mPendingTasks == 0) { stopSelf(mLastStartId); }
+        }
+    };
 
-        // Start actual work in separate thread
+    private void runSuite(String suiteFileName)
+    {
+        if (suiteFileName == null) { throw new RuntimeException("Missing suite file in Intent!"); }
+
+        // Keep the CPU running for the whole night, even with the screen turned off
+        PowerManager.WakeLock wakeLock = acquireWakeLock();
+        TestCaseRunner runner = new TestCaseRunner();
+        startRunner(runner);
         try
         {
-            Benchmark benchmark = benchmarks[benchmarkIdx];
-            mExecutor = new BenchmarkExecutor(getBaseContext(), benchmark, parameter, cycles, sleep, testCase);
+            SuiteDefinition suite = SuiteDefinition.read(suiteFileName);
+            String resultFileName = new SuiteRunner(suite, runner).run();
 
-            Thread thread = new Thread(mExecutor);
-            thread.start();
-            thread.join();
+            final Intent finishedIntent = new Intent(ACTION_SUITE_FINISHED);
+            finishedIntent.putExtra(EXTRA_FILENAME, resultFileName);
+            sendBroadcast(finishedIntent);
         }
+        catch (IOException e) { Log.e(TAG, "Failed to run suite " + suiteFileName + ": " + e.getMessage()); }
         catch (InterruptedException ignored) { }
+        finally
+        {
+            mCurrentRunner = null;
+            wakeLock.release();
+        }
+    }
+
+    private PowerManager.WakeLock acquireWakeLock()
+    {
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        PowerManager.WakeLock wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, TAG);
+        wakeLock.acquire();
+        return wakeLock;
+    }
+
+    private void startRunner(TestCaseRunner runner)
+    {
+        mCurrentRunner = runner;
+
+        // The service may have been destroyed before the task was picked up
+        if (mCanceled) { runner.cancel(); }
+    }
+
+    /**
+     * Runs all test cases of a submitted plan and reports back to the client.
+     */
+    private class PlanJob implements Runnable, ProgressListener
+    {
+        private final int mId;
+        private final BenchmarkPlan mPlan;
+        private final Messenger mClient;
+
+        private final TestCaseRunner mRunner = new TestCaseRunner();
+        private volatile boolean mFinished = false;
+
+        PlanJob(int id, BenchmarkPlan plan, Messenger client)
+        {
+            mId = id;
+            mPlan = plan;
+            mClient = client;
+        }
+
+        void cancel()
+        {
+            mRunner.cancel();
+        }
+
+        @Override
+        public void run()
+        {
+            startRunner(mRunner);
+
+            // Soak runs take hours and have to continue with the screen turned off
+            PowerManager.WakeLock wakeLock = mPlan.getConfiguration().isSoak() ? acquireWakeLock() : null;
+            try { runPlan(); }
+            catch (InterruptedException e) { mRunner.cancel(); }
+            finally
+            {
+                if (wakeLock != null) { wakeLock.release(); }
+                mCurrentRunner = null;
+                mFinished = true;
+                send(MSG_PLAN_FINISHED, mRunner.isCanceled() ? 1 : 0, null);
+            }
+        }
+
+        private void runPlan() throws InterruptedException
+        {
+            BenchmarkConfiguration config = mPlan.getConfiguration();
+            List<TestCase> testCases = mPlan.getTestCases();
+            Gson gson = new Gson();
+
+            for (TestCase testCase : testCases)
+            {
+                if (mRunner.isCanceled()) { return; }
+                Log.d(TAG, String.format(Locale.US, "Next test case: '%s' with %d cycles", testCase.getName(), config.Cycles));
+
+                BenchmarkResult result = new BenchmarkResult(mPlan.getName());
+                if (!mRunner.run(config, testCase, this, result)) { return; }
+
+                // Hand the result of the test case directly to the client
+                Bundle data = new Bundle();
+                data.putString(KEY_TEST_CASE_NAME, testCase.getName());
+                data.putString(KEY_RESULT, gson.toJson(result));
+                send(MSG_TEST_CASE_FINISHED, 0, data);
+            }
+        }
+
+        @Override
+        public void onTestCaseStarted(String testCase)
+        {
+            Bundle data = new Bundle();
+            data.putString(KEY_TEST_CASE_NAME, testCase);
+            send(MSG_TEST_CASE_STARTED, 0, data);
+        }
+
+        @Override
+        public void onProgress(int iterations, long calcMax, long sleepMax)
+        {
+            Bundle data = new Bundle();
+            data.putLong(KEY_CALC_MAX, calcMax);
+            data.putLong(KEY_SLEEP_MAX, sleepMax);
+            send(MSG_PROGRESS, iterations, data);
+        }
+
+        private void send(int what, int arg2, Bundle data)
+        {
+            if (mClient == null) { return; }
+
+            Message msg = Message.obtain(null, what, mId, arg2);
+            if (data != null) { msg.setData(data); }
+
+            // The client may be gone, the plan still continues
+            try { mClient.send(msg); }
+            catch (RemoteException e) { Log.w(TAG, "Failed to notify the client: " + e.getMessage()); }
+        }
     }
 }
@@ -17,8 +17,6 @@
 package rtandroid.benchmark.ui;
 
 import android.app.Activity;
-import android.content.Context;
-import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
@@ -38,17 +36,22 @@
 import android.widget.ListView;
 import android.widget.TextView;
 
-import com.google.gson.Gson;
-
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 import rtandroid.benchmark.R;
+import rtandroid.benchmark.benchmarks.BenchmarkManager;
 import rtandroid.benchmark.data.BenchmarkConfiguration;
+import rtandroid.benchmark.data.BenchmarkPlan;
+import rtandroid.benchmark.data.BenchmarkResult;
 import rtandroid.benchmark.data.TestCase;
 import rtandroid.benchmark.data.TestCaseAdapter;
-import rtandroid.benchmark.service.BenchmarkService;
+import rtandroid.benchmark.service.BenchmarkEngine;
 import rtandroid.benchmark.ui.dialogs.BenchmarkPickerDialog;
 import rtandroid.benchmark.ui.dialogs.NumberPickerDialog;
 import rtandroid.benchmark.ui.dialogs.ProgressDialog;
@@ -77,16 +80,39 @@ public class BenchmarkFragment extends Fragment implements View.OnClickListener,
     private static final int CYCLES_MAX = 100000;
     private static final int CYCLES_STEP = 1000;
     private static final int CYCLES_DEFAULT = 1000;
-    private static final int SLEEP_MIN = 10;
-    private static final int SLEEP_MAX = 1000;
-    private static final int SLEEP_STEP = 10;
-    private static final int SLEEP_DEFAULT = 10;
+    // Sleep periods in us, covering control loops from 20 kHz down to 1 Hz
+    private static final int[] SLEEP_VALUES = { 50, 100, 125, 200, 250, 500, 1000, 2000, 5000, 10000, 20000, 50000, 100000, 200000, 500000, 1000000 };
+    private static final int SLEEP_DEFAULT = 10000;
+    private static final boolean EXPORT_CSV_DEFAULT = false;
+    private static final boolean PERIODIC_DEFAULT = false;
+    private static final int THREADS_MIN = 1;
+    private static final int THREADS_MAX = 8;
+    private static final int THREADS_DEFAULT = 1;
+    private static final int WORKER_THREADS_MIN = 1;
+    private static final int WORKER_THREADS_MAX = 8;
+    private static final int WORKER_THREADS_DEFAULT = 1;
+    // Adaptive runs stop once the results are stable within the tolerance, the time budget applies to all runs
+    private static final int[] TOLERANCE_VALUES = { BenchmarkConfiguration.NO_TOLERANCE, 1, 2, 5, 10 };
+    private static final int[] MAX_DURATION_VALUES = { BenchmarkConfiguration.NO_MAX_DURATION, 60, 300, 600, 1800, 3600 };
+    // Soak runs from 10 minutes up to a whole day
+    private static final int[] DURATION_VALUES = { BenchmarkConfiguration.NO_DURATION, 600, 1800, 3600, 14400, 28800, 86400 };
+    // Benchmarks in the order of versions which stored the selection as index
+    private static final String[] LEGACY_BENCHMARKS = { "Matrix-Naive-double", "Fibonacci-Iterative" };
 
     // Preference keys
     private static final String KEY_BENCHMARK = "benchmark";
+    private static final String KEY_BENCHMARK_NAME = "benchmark_name";
     private static final String KEY_PARAMETER = "parameter";
     private static final String KEY_CYCLES = "cycles";
     private static final String KEY_SLEEP = "sleep";
+    private static final String KEY_SLEEP_US = "sleep_us";
+    private static final String KEY_EXPORT_CSV = "export_csv";
+    private static final String KEY_PERIODIC = "periodic";
+    private static final String KEY_THREADS = "threads";
+    private static final String KEY_WORKER_THREADS = "worker_threads";
+    private static final String KEY_TOLERANCE = "tolerance";
+    private static final String KEY_MAX_DURATION = "max_duration";
+    private static final String KEY_DURATION = "duration";
 
     private final BenchmarkConfiguration mConfig = new BenchmarkConfiguration();
 
@@ -100,6 +126,13 @@ public class BenchmarkFragment extends Fragment implements View.OnClickListener,
     private TextView mParameterDisplay;
     private TextView mCyclesDisplay;
     private TextView mSleepDisplay;
+    private TextView mScheduleDisplay;
+    private TextView mExportCsvDisplay;
+    private TextView mThreadsDisplay;
+    private TextView mWorkerThreadsDisplay;
+    private TextView mToleranceDisplay;
+    private TextView mMaxDurationDisplay;
+    private TextView mDurationDisplay;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState)
@@ -120,26 +153,53 @@ public void onActivityCreated(@Nullable Bundle savedInstanceState)
         mParameterDisplay = (TextView) root.findViewById(R.id.input_parameter_display);
         mCyclesDisplay = (TextView) root.findViewById(R.id.input_cycles_display);
         mSleepDisplay = (TextView) root.findViewById(R.id.input_sleep_display);
+        mScheduleDisplay = (TextView) root.findViewById(R.id.input_schedule_display);
+        mExportCsvDisplay = (TextView) root.findViewById(R.id.input_export_csv_display);
+        mThreadsDisplay = (TextView) root.findViewById(R.id.input_threads_display);
+        mWorkerThreadsDisplay = (TextView) root.findViewById(R.id.input_worker_threads_display);
+        mToleranceDisplay = (TextView) root.findViewById(R.id.input_tolerance_display);
+        mMaxDurationDisplay = (TextView) root.findViewById(R.id.input_max_duration_display);
+        mDurationDisplay = (TextView) root.findViewById(R.id.input_duration_display);
 
         // Load last benchmark settings
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(getActivity());
         mConfig.Parameter = prefs.getInt(KEY_PARAMETER, PARAMETER_DEFAULT);
         mConfig.Cycles = prefs.getInt(KEY_CYCLES, CYCLES_DEFAULT);
-        mConfig.SleepMs = prefs.getInt(KEY_SLEEP, SLEEP_DEFAULT);
+        mConfig.SleepUs = prefs.getInt(KEY_SLEEP_US, 1000 * prefs.getInt(KEY_SLEEP, SLEEP_DEFAULT / 1000));
+        mConfig.ExportCsv = prefs.getBoolean(KEY_EXPORT_CSV, EXPORT_CSV_DEFAULT);
+        mConfig.Periodic = prefs.getBoolean(KEY_PERIODIC, PERIODIC_DEFAULT);
+        mConfig.Threads = prefs.getInt(KEY_THREADS, THREADS_DEFAULT);
+        mConfig.WorkerThreads = prefs.getInt(KEY_WORKER_THREADS, WORKER_THREADS_DEFAULT);
+        mConfig.TolerancePercent = prefs.getInt(KEY_TOLERANCE, BenchmarkConfiguration.NO_TOLERANCE);
+        mConfig.MaxDurationS = prefs.getInt(KEY_MAX_DURATION, BenchmarkConfiguration.NO_MAX_DURATION);
+        mConfig.DurationS = prefs.getInt(KEY_DURATION, BenchmarkConfiguration.NO_DURATION);
 
         mParameterDisplay.setText(Integer.toString(mConfig.Parameter));
         mCyclesDisplay.setText(Integer.toString(mConfig.Cycles));
-        mSleepDisplay.setText(Integer.toString(mConfig.SleepMs) + " ms");
-
-        mConfig.BenchmarkIdx = prefs.getInt(KEY_BENCHMARK, 0);
-        if (mConfig.getBenchmark() == null) { mConfig.BenchmarkIdx = 0; }
-                                       else { mBenchmarkDisplay.setText(mConfig.getBenchmark().getName()); }
+        mSleepDisplay.setText(getString(R.string.run_input_sleep_value, mConfig.SleepUs));
+        mScheduleDisplay.setText(mConfig.Periodic ? R.string.run_schedule_periodic : R.string.run_schedule_relative);
+        mExportCsvDisplay.setText(mConfig.ExportCsv ? R.string.run_export_csv_enabled : R.string.run_export_csv_disabled);
+        mThreadsDisplay.setText(Integer.toString(mConfig.Threads));
+        mWorkerThreadsDisplay.setText(Integer.toString(mConfig.WorkerThreads));
+        updateToleranceDisplay();
+        updateMaxDurationDisplay();
+        updateDurationDisplay();
+
+        mConfig.BenchmarkIdx = loadBenchmark(prefs);
+        mBenchmarkDisplay.setText(mConfig.getBenchmark().getName());
 
         // Register touch handler
         root.findViewById(R.id.benchmark).setOnClickListener(this);
         root.findViewById(R.id.parameter).setOnClickListener(this);
         root.findViewById(R.id.cycles).setOnClickListener(this);
         root.findViewById(R.id.sleep).setOnClickListener(this);
+        root.findViewById(R.id.schedule).setOnClickListener(this);
+        root.findViewById(R.id.export_csv).setOnClickListener(this);
+        root.findViewById(R.id.threads).setOnClickListener(this);
+        root.findViewById(R.id.worker_threads).setOnClickListener(this);
+        root.findViewById(R.id.tolerance).setOnClickListener(this);
+        root.findViewById(R.id.max_duration).setOnClickListener(this);
+        root.findViewById(R.id.duration).setOnClickListener(this);
         root.findViewById(R.id.start_benchmark).setOnClickListener(this);
         root.findViewById(R.id.add_test_case).setOnClickListener(this);
 
@@ -217,7 +277,35 @@ public void onClick(View view)
                 break;
 
             case R.id.sleep:
-                dialog = NumberPickerDialog.newInstance(R.string.run_input_sleep, SLEEP_MIN, SLEEP_MAX, SLEEP_STEP, mConfig.SleepMs, R.string.run_input_sleep_unit);
+                dialog = NumberPickerDialog.newInstance(R.string.run_input_sleep, SLEEP_VALUES, mConfig.SleepUs, R.string.run_input_sleep_unit);
+                break;
+
+            case R.id.schedule:
+                toggleSchedule();
+                break;
+
+            case R.id.export_csv:
+                toggleExportCsv();
+                break;
+
+            case R.id.threads:
+                dialog = NumberPickerDialog.newInstance(R.string.run_input_threads, THREADS_MIN, THREADS_MAX, 1, mConfig.Threads, R.string.run_input_no_unit);
+                break;
+
+            case R.id.worker_threads:
+                dialog = NumberPickerDialog.newInstance(R.string.run_input_worker_threads, WORKER_THREADS_MIN, WORKER_THREADS_MAX, 1, mConfig.WorkerThreads, R.string.run_input_no_unit);
+                break;
+
+            case R.id.tolerance:
+                dialog = NumberPickerDialog.newInstance(R.string.run_input_tolerance, TOLERANCE_VALUES, mConfig.TolerancePercent, R.string.run_input_tolerance_unit);
+                break;
+
+            case R.id.max_duration:
+                dialog = NumberPickerDialog.newInstance(R.string.run_input_max_duration, MAX_DURATION_VALUES, mConfig.MaxDurationS, R.string.run_input_max_duration_unit);
+                break;
+
+            case R.id.duration:
+                dialog = NumberPickerDialog.newInstance(R.string.run_input_duration, DURATION_VALUES, mConfig.DurationS, R.string.run_input_max_duration_unit);
                 break;
 
             case R.id.start_benchmark:
@@ -285,7 +373,7 @@ public void onValueSelected(int requestCode, int value)
         {
             case R.id.benchmark:
                 mConfig.BenchmarkIdx = value;
-                prefs.edit().putInt(KEY_BENCHMARK, mConfig.BenchmarkIdx).apply();
+                prefs.edit().putString(KEY_BENCHMARK_NAME, BenchmarkManager.getBenchmarks()[value].getName()).apply();
                 mBenchmarkDisplay.setText(mConfig.getBenchmark().getName());
                 break;
 
@@ -302,9 +390,40 @@ public void onValueSelected(int requestCode, int value)
                 break;
 
             case R.id.sleep:
-                mConfig.SleepMs = value;
-                prefs.edit().putInt(KEY_SLEEP, mConfig.SleepMs).apply();
-                mSleepDisplay.setText(Integer.toString(mConfig.SleepMs));
+                mConfig.SleepUs = value;
+                prefs.edit().putInt(KEY_SLEEP_US, mConfig.SleepUs).apply();
+                mSleepDisplay.setText(getString(R.string.run_input_sleep_value, mConfig.SleepUs));
+                break;
+
+            case R.id.threads:
+                mConfig.Threads = value;
+                prefs.edit().putInt(KEY_THREADS, mConfig.Threads).apply();
+                mThreadsDisplay.setText(Integer.toString(mConfig.Threads));
+                break;
+
+            case R.id.worker_threads:
+                mConfig.WorkerThreads = value;
+                prefs.edit().putInt(KEY_WORKER_THREADS, mConfig.WorkerThreads).apply();
+                mWorkerThreadsDisplay.setText(Integer.toString(mConfig.WorkerThreads));
+                mBenchmarkDisplay.setText(mConfig.getBenchmark().getName());
+                break;
+
+            case R.id.tolerance:
+                mConfig.TolerancePercent = value;
+                prefs.edit().putInt(KEY_TOLERANCE, mConfig.TolerancePercent).apply();
+                updateToleranceDisplay();
+                break;
+
+            case R.id.max_duration:
+                mConfig.MaxDurationS = value;
+                prefs.edit().putInt(KEY_MAX_DURATION, mConfig.MaxDurationS).apply();
+                updateMaxDurationDisplay();
+                break;
+
+            case R.id.duration:
+                mConfig.DurationS = value;
+                prefs.edit().putInt(KEY_DURATION, mConfig.DurationS).apply();
+                updateDurationDisplay();
                 break;
 
             default:
@@ -312,6 +431,52 @@ public void onValueSelected(int requestCode, int value)
         }
     }
 
+    private void updateToleranceDisplay()
+    {
+        if (mConfig.isAdaptive()) { mToleranceDisplay.setText(getString(R.string.run_input_tolerance_value, mConfig.TolerancePercent)); }
+                             else { mToleranceDisplay.setText(R.string.run_tolerance_fixed); }
+    }
+
+    private void updateMaxDurationDisplay()
+    {
+        if (mConfig.MaxDurationS > 0) { mMaxDurationDisplay.setText(getString(R.string.run_input_max_duration_value, mConfig.MaxDurationS)); }
+                                 else { mMaxDurationDisplay.setText(R.string.run_max_duration_unlimited); }
+    }
+
+    /**
+     * @return Index of the selected benchmark, stored by name as new benchmarks shift the indices.
+     */
+    private static int loadBenchmark(SharedPreferences prefs)
+    {
+        int legacyIdx = Math.min(Math.max(prefs.getInt(KEY_BENCHMARK, 0), 0), LEGACY_BENCHMARKS.length - 1);
+        int benchmarkIdx = BenchmarkManager.findBenchmark(prefs.getString(KEY_BENCHMARK_NAME, LEGACY_BENCHMARKS[legacyIdx]));
+        return (benchmarkIdx != BenchmarkManager.NO_BENCHMARK) ? benchmarkIdx : 0;
+    }
+
+    private void updateDurationDisplay()
+    {
+        if (mConfig.isSoak()) { mDurationDisplay.setText(getString(R.string.run_input_max_duration_value, mConfig.DurationS)); }
+                         else { mDurationDisplay.setText(R.string.run_duration_cycles); }
+    }
+
+    private void toggleSchedule()
+    {
+        mConfig.Periodic = !mConfig.Periodic;
+
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(getActivity());
+        prefs.edit().putBoolean(KEY_PERIODIC, mConfig.Periodic).apply();
+        mScheduleDisplay.setText(mConfig.Periodic ? R.string.run_schedule_periodic : R.string.run_schedule_relative);
+    }
+
+    private void toggleExportCsv()
+    {
+        mConfig.ExportCsv = !mConfig.ExportCsv;
+
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(getActivity());
+        prefs.edit().putBoolean(KEY_EXPORT_CSV, mConfig.ExportCsv).apply();
+        mExportCsvDisplay.setText(mConfig.ExportCsv ? R.string.run_export_csv_enabled : R.string.run_export_csv_disabled);
+    }
+
     private void startBenchmark()
     {
         Set<TestCase> selectedCases = mTestCaseAdapter.getSelectedTestCases();
@@ -327,32 +492,21 @@ private void startBenchmark()
             return;
         }
 
-        // Add a warmup case
-        selectedCases.add(new TestCase("Warmup Phase", TestCase.NO_PRIORITY, TestCase.NO_POWER_LEVEL, TestCase.NO_CORE_LOCK));
-
-        // Notify listener
-        if (mListener != null) { mListener.onBenchmarkStart(mConfig); }
+        // Submit all test cases at once
+        DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss", Locale.getDefault());
+        String name = mConfig.getBenchmark().getName();
+        String resultName = String.format("%s (%s)", dateFormat.format(new Date()), name);
+        BenchmarkPlan plan = new BenchmarkPlan(resultName, mConfig, selectedCases);
+        BenchmarkEngine.Handle handle = BenchmarkEngine.getInstance(getActivity()).submit(plan);
 
         // Show dialog
-        DialogFragment dialog = ProgressDialog.newInstance(mConfig.getBenchmark().getName(), selectedCases.size(), mConfig.Cycles);
+        // Soak runs report their progress against the expected number of cycles
+        int cycles = mConfig.Cycles;
+        if (mConfig.isSoak()) { cycles = (int) Math.min(1000L * 1000 * mConfig.DurationS / mConfig.SleepUs, Integer.MAX_VALUE / selectedCases.size()); }
+
+        DialogFragment dialog = ProgressDialog.newInstance(name, handle.getId(), selectedCases.size(), cycles);
         dialog.setTargetFragment(this, 0);
         dialog.show(getFragmentManager(), null);
-
-        // Start service and queue all benchmarks
-        Context context = getActivity();
-        Intent intent = new Intent(context, BenchmarkService.class);
-        intent.putExtra(BenchmarkService.EXTRA_BENCHMARK, mConfig.BenchmarkIdx);
-        intent.putExtra(BenchmarkService.EXTRA_PARAMETER, mConfig.Parameter);
-        intent.putExtra(BenchmarkService.EXTRA_CYCLES, mConfig.Cycles);
-        intent.putExtra(BenchmarkService.EXTRA_SLEEP, mConfig.SleepMs);
-
-        Gson gson = new Gson();
-        for (TestCase testCase : selectedCases)
-        {
-            String jsonTestCase = gson.toJson(testCase, TestCase.class);
-            intent.putExtra(BenchmarkService.EXTRA_TEST_CASE, jsonTestCase);
-            context.startService(intent);
-        }
     }
 
     @Override
@@ -362,27 +516,12 @@ public void onBenchmarkCanceled()
     }
 
     @Override
-    public void onTestCaseCompleted(String name, String filename)
-    {
-        // can't notify without the listener
-        if (mListener == null) { return; }
-
-        // find corresponding test case
-        TestCase completedTest = null;
-        for (TestCase testCase : mTestCases)
-         if (testCase.getName().equals(name)) { completedTest = testCase; }
-
-        // add only valid tests to shown statistics
-        if (completedTest != null) { mListener.onTestCaseCompleted(completedTest, filename); }
-    }
-
-    @Override
-    public void onBenchmarkFinished()
+    public void onBenchmarkFinished(BenchmarkResult result)
     {
         // can't notify without the listener
         if (mListener == null) { return; }
 
-        mListener.onBenchmarkFinished();
+        mListener.onBenchmarkFinished(result);
     }
 
     @Override
@@ -417,9 +556,7 @@ public void onTestCaseUpdated(TestCase oldTestCase, TestCase newTestCase)
      */
     public interface OnFragmentInteractionListener
     {
-        void onBenchmarkStart(BenchmarkConfiguration config);
-        void onTestCaseCompleted(TestCase testCase, String fileName);
-        void onBenchmarkFinished();
+        void onBenchmarkFinished(BenchmarkResult result);
         List<TestCase> loadTestCases();
         void saveTestCases(List<TestCase> testCases);
     }
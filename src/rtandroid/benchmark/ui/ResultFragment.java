@@ -42,19 +42,49 @@
 public class ResultFragment extends Fragment implements AdapterView.OnItemSelectedListener
 {
     private static final Map<Integer, BenchmarkResult.Kind> RESULT_VIEW_MAP;
+    private static final Map<Integer, BenchmarkResult.Kind> LOAD_VIEW_MAP;
 
     static
     {
         Map<Integer, BenchmarkResult.Kind> viewMap = new HashMap<>();
         viewMap.put(R.id.calc_minimum, BenchmarkResult.Kind.CALCULATION_MINIMUM);
         viewMap.put(R.id.calc_mean, BenchmarkResult.Kind.CALCULATION_MEAN);
+        viewMap.put(R.id.calc_p50, BenchmarkResult.Kind.CALCULATION_P50);
+        viewMap.put(R.id.calc_p90, BenchmarkResult.Kind.CALCULATION_P90);
+        viewMap.put(R.id.calc_p99, BenchmarkResult.Kind.CALCULATION_P99);
+        viewMap.put(R.id.calc_p999, BenchmarkResult.Kind.CALCULATION_P999);
+        viewMap.put(R.id.calc_p9999, BenchmarkResult.Kind.CALCULATION_P9999);
+        viewMap.put(R.id.calc_worst_interval_p99, BenchmarkResult.Kind.CALCULATION_WORST_INTERVAL_P99);
         viewMap.put(R.id.calc_maximum, BenchmarkResult.Kind.CALCULATION_MAXIMUM);
         viewMap.put(R.id.calc_deviation, BenchmarkResult.Kind.CALCULATION_DEVIATION);
         viewMap.put(R.id.sleep_minimum, BenchmarkResult.Kind.SLEEP_MINIMUM);
         viewMap.put(R.id.sleep_mean, BenchmarkResult.Kind.SLEEP_MEAN);
+        viewMap.put(R.id.sleep_p50, BenchmarkResult.Kind.SLEEP_P50);
+        viewMap.put(R.id.sleep_p90, BenchmarkResult.Kind.SLEEP_P90);
+        viewMap.put(R.id.sleep_p99, BenchmarkResult.Kind.SLEEP_P99);
+        viewMap.put(R.id.sleep_p999, BenchmarkResult.Kind.SLEEP_P999);
+        viewMap.put(R.id.sleep_p9999, BenchmarkResult.Kind.SLEEP_P9999);
+        viewMap.put(R.id.sleep_worst_interval_p99, BenchmarkResult.Kind.SLEEP_WORST_INTERVAL_P99);
         viewMap.put(R.id.sleep_maximum, BenchmarkResult.Kind.SLEEP_MAXIMUM);
         viewMap.put(R.id.sleep_deviation, BenchmarkResult.Kind.SLEEP_DEVIATION);
+        viewMap.put(R.id.sleep_deadline_misses, BenchmarkResult.Kind.SLEEP_DEADLINE_MISSES);
+        viewMap.put(R.id.sleep_overruns, BenchmarkResult.Kind.SLEEP_OVERRUNS);
+        viewMap.put(R.id.gc_calc_hits, BenchmarkResult.Kind.CALCULATION_GC_HITS);
+        viewMap.put(R.id.gc_calc_maximum, BenchmarkResult.Kind.CALCULATION_GC_MAXIMUM);
+        viewMap.put(R.id.gc_sleep_hits, BenchmarkResult.Kind.SLEEP_GC_HITS);
+        viewMap.put(R.id.gc_sleep_maximum, BenchmarkResult.Kind.SLEEP_GC_MAXIMUM);
+        viewMap.put(R.id.cycles, BenchmarkResult.Kind.CYCLES);
+        viewMap.put(R.id.warmup_cycles, BenchmarkResult.Kind.WARMUP_CYCLES);
+        viewMap.put(R.id.dropped_samples, BenchmarkResult.Kind.DROPPED_SAMPLES);
         RESULT_VIEW_MAP = Collections.unmodifiableMap(viewMap);
+
+        // Differences between the idle system and the one under load
+        Map<Integer, BenchmarkResult.Kind> loadMap = new HashMap<>();
+        loadMap.put(R.id.load_calc_p99, BenchmarkResult.Kind.CALCULATION_P99);
+        loadMap.put(R.id.load_calc_maximum, BenchmarkResult.Kind.CALCULATION_MAXIMUM);
+        loadMap.put(R.id.load_sleep_p99, BenchmarkResult.Kind.SLEEP_P99);
+        loadMap.put(R.id.load_sleep_maximum, BenchmarkResult.Kind.SLEEP_MAXIMUM);
+        LOAD_VIEW_MAP = Collections.unmodifiableMap(loadMap);
     }
 
     private OnFragmentInteractionListener mListener;
@@ -118,6 +148,12 @@ public void onItemSelected(AdapterView<?> adapterView, View view, int i, long l)
             StatisticView v = (StatisticView) view.findViewById(entry.getKey());
             v.setResult(result.getResult(entry.getValue()));
         }
+
+        for (Map.Entry<Integer, BenchmarkResult.Kind> entry : LOAD_VIEW_MAP.entrySet())
+        {
+            StatisticView v = (StatisticView) view.findViewById(entry.getKey());
+            v.setResult(result.getLoadDelta(entry.getValue()));
+        }
     }
 
     @Override
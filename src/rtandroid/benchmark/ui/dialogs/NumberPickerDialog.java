@@ -31,7 +31,7 @@
 import rtandroid.benchmark.R;
 
 /**
- * Dialog which allows choosing of a number in certain range with a step.
+ * Dialog which allows choosing of a number in certain range with a step or from a fixed list.
  */
 public class NumberPickerDialog extends DialogFragment implements DialogInterface.OnClickListener
 {
@@ -41,6 +41,7 @@ public class NumberPickerDialog extends DialogFragment implements DialogInterfac
     private static final String ARG_VALUE = "value";
     private static final String ARG_STEP = "step";
     private static final String ARG_UNIT = "unit";
+    private static final String ARG_VALUES = "values";
 
     private OnValueSelectedListener mListener;
     private String[] mDisplayedValues;
@@ -71,6 +72,27 @@ public static NumberPickerDialog newInstance(int titleRes, int min, int max, int
         return fragment;
     }
 
+    /**
+     * @return New instance of fragment NumberPickerDialog offering only the given values.
+     */
+    public static NumberPickerDialog newInstance(int titleRes, int[] values, int value, int unit)
+    {
+        if (values.length < 2)
+        {
+            throw new IllegalArgumentException("At least two values are required!");
+        }
+
+        Bundle args = new Bundle();
+        args.putInt(ARG_TITLE, titleRes);
+        args.putIntArray(ARG_VALUES, values);
+        args.putInt(ARG_VALUE, value);
+        args.putInt(ARG_UNIT, unit);
+
+        NumberPickerDialog fragment = new NumberPickerDialog();
+        fragment.setArguments(args);
+        return fragment;
+    }
+
     @NonNull
     @Override
     public Dialog onCreateDialog(Bundle savedInstanceState)
@@ -81,16 +103,30 @@ public Dialog onCreateDialog(Bundle savedInstanceState)
         Bundle args = getArguments();
         int titleRes = args.getInt(ARG_TITLE);
         int value = args.getInt(ARG_VALUE);
-        int min = args.getInt(ARG_MIN);
-        int max = args.getInt(ARG_MAX);
-        int step = args.getInt(ARG_STEP);
         int unitRes = args.getInt(ARG_UNIT);
 
         // Create value list
-        mDisplayedValues = new String[(max - min) / step + 1];
-        for(int i = 0; i < mDisplayedValues.length; i++)
+        int[] values = args.getIntArray(ARG_VALUES);
+        if (values == null)
+        {
+            int min = args.getInt(ARG_MIN);
+            int max = args.getInt(ARG_MAX);
+            int step = args.getInt(ARG_STEP);
+
+            values = new int[(max - min) / step + 1];
+            for(int i = 0; i < values.length; i++)
+            {
+                values[i] = min + step * i;
+            }
+        }
+
+        // Preselect the closest value
+        int selected = 0;
+        mDisplayedValues = new String[values.length];
+        for(int i = 0; i < values.length; i++)
         {
-            mDisplayedValues[i] = String.valueOf(min + step * i);
+            mDisplayedValues[i] = String.valueOf(values[i]);
+            if (Math.abs(values[i] - value) < Math.abs(values[selected] - value)) { selected = i; }
         }
 
         // Fill views
@@ -98,8 +134,8 @@ public Dialog onCreateDialog(Bundle savedInstanceState)
         mPicker = (NumberPicker) v.findViewById(R.id.picker_value);
         mPicker.setMinValue(0);
         mPicker.setMaxValue(mDisplayedValues.length - 1);
-        mPicker.setValue((value - min) / step);
         mPicker.setDisplayedValues(mDisplayedValues);
+        mPicker.setValue(selected);
         mPicker.setWrapSelectorWheel(false);
         mPicker.setDescendantFocusability(NumberPicker.FOCUS_BLOCK_DESCENDANTS); // Blocks keyboard
         TextView unitName = (TextView) v.findViewById(R.id.picker_unit);
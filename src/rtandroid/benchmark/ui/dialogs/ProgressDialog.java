@@ -18,11 +18,7 @@
 
 import android.app.Activity;
 import android.app.Dialog;
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.DialogInterface;
-import android.content.Intent;
-import android.content.IntentFilter;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.v4.app.DialogFragment;
@@ -35,23 +31,21 @@
 import java.util.Locale;
 
 import rtandroid.benchmark.R;
-import rtandroid.benchmark.service.BenchmarkService;
+import rtandroid.benchmark.data.BenchmarkResult;
+import rtandroid.benchmark.service.BenchmarkEngine;
 
 /**
  * Dialog which shows progress of current executed benchmark.
  */
-public class ProgressDialog extends DialogFragment implements DialogInterface.OnClickListener
+public class ProgressDialog extends DialogFragment implements DialogInterface.OnClickListener, BenchmarkEngine.Listener
 {
     private static final String ARG_BENCHMARK = "benchmark";
+    private static final String ARG_PLAN_ID = "plan_id";
     private static final String ARG_CASE_COUNT = "case_count";
     private static final String ARG_CYCLES = "cycles";
 
-    private static final String BUNDLE_CASE_NAME = "test_case_name";
-    private static final String BUNDLE_CASES_COMPLETED = "cases_completed";
-    private static final String BUNDLE_CYCLES_COMPLETED = "cycles_completed";
-
     private OnProgressListener mListener;
-    private BroadcastReceiver mUpdateReceiver;
+    private BenchmarkEngine.Handle mHandle;
 
     private String mCurrentTestCaseName = "";
 
@@ -60,6 +54,7 @@ public class ProgressDialog extends DialogFragment implements DialogInterface.On
     private int mCyclesTotal;
     private int mCyclesPerRun;
     private int mCyclesCompleted = 0;
+    private long mSleepMax = 0;
 
     private TextView mTotalProgress;
     private ProgressBar mTotalProgressBar;
@@ -67,13 +62,15 @@ public class ProgressDialog extends DialogFragment implements DialogInterface.On
     private ProgressBar mCurrentProgressBar;
 
     /**
+     * @param planId Id of the handle returned by the {@link BenchmarkEngine}.
      * @return New instance of fragment ProgressDialog.
      */
-    public static ProgressDialog newInstance(String benchmarkName, int caseCount, int cycles)
+    public static ProgressDialog newInstance(String benchmarkName, int planId, int caseCount, int cycles)
     {
         // Create argument bundle
         Bundle args = new Bundle();
         args.putString(ARG_BENCHMARK, benchmarkName);
+        args.putInt(ARG_PLAN_ID, planId);
         args.putInt(ARG_CASE_COUNT, caseCount);
         args.putInt(ARG_CYCLES, cycles);
 
@@ -116,33 +113,11 @@ public Dialog onCreateDialog(Bundle savedInstanceState)
         return dlg;
     }
 
-    @Override
-    public void onCreate(Bundle savedInstanceState)
-    {
-        super.onCreate(savedInstanceState);
-
-        // Restore old values
-        if(savedInstanceState != null)
-        {
-            mCurrentTestCaseName = savedInstanceState.getString(BUNDLE_CASE_NAME);
-            mCasesCompleted = savedInstanceState.getInt(BUNDLE_CASES_COMPLETED);
-            mCyclesCompleted = savedInstanceState.getInt(BUNDLE_CYCLES_COMPLETED);
-        }
-    }
-
     @Override
     public void onAttach(Activity activity)
     {
         super.onAttach(activity);
 
-        // Register listener
-        mUpdateReceiver = new UpdateReceiver();
-        IntentFilter filter = new IntentFilter();
-        filter.addAction(BenchmarkService.ACTION_START);
-        filter.addAction(BenchmarkService.ACTION_UPDATE);
-        filter.addAction(BenchmarkService.ACTION_FINISHED);
-        activity.registerReceiver(mUpdateReceiver, filter);
-
         try
         {
             mListener = (OnProgressListener) getTargetFragment();
@@ -154,29 +129,36 @@ public void onAttach(Activity activity)
     }
 
     @Override
-    public void onSaveInstanceState(Bundle outState)
+    public void onStart()
     {
-        super.onSaveInstanceState(outState);
+        super.onStart();
+
+        // The engine keeps the state of the plan, e.g. while the activity is recreated
+        int planId = getArguments().getInt(ARG_PLAN_ID);
+        mHandle = BenchmarkEngine.getInstance(getActivity()).getHandle(planId);
+        if (mHandle == null)
+        {
+            dismiss();
+            return;
+        }
 
-        // Restore current values
-        outState.putString(BUNDLE_CASE_NAME, mCurrentTestCaseName);
-        outState.putInt(BUNDLE_CASES_COMPLETED, mCasesCompleted);
-        outState.putInt(BUNDLE_CYCLES_COMPLETED, mCyclesCompleted);
+        updateProgress();
+        mHandle.setListener(this);
     }
 
     @Override
-    public void onDetach()
+    public void onStop()
     {
-        super.onDetach();
+        if (mHandle != null) { mHandle.setListener(null); }
 
-        getActivity().unregisterReceiver(mUpdateReceiver);
+        super.onStop();
     }
 
     @Override
     public void onClick(DialogInterface dialogInterface, int i)
     {
         // Abort benchmark
-        stopService();
+        if (mHandle != null) { mHandle.cancel(); }
 
         // Notify listener
         if (mListener != null)
@@ -185,71 +167,55 @@ public void onClick(DialogInterface dialogInterface, int i)
         }
     }
 
-    private void updateProgress()
+    @Override
+    public void onTestCaseStarted(BenchmarkEngine.Handle handle, String testCase)
     {
-        int completedCycles = mCasesCompleted * mCyclesPerRun + mCyclesCompleted;
+        updateProgress();
+    }
 
-        mTotalProgress.setText(String.format(Locale.US, "Total: %d%%", 100 * completedCycles / mCyclesTotal));
-        mTotalProgressBar.setProgress(mCasesCompleted * mCyclesPerRun + mCyclesCompleted);
+    @Override
+    public void onProgress(BenchmarkEngine.Handle handle, int iterations, long calcMax, long sleepMax)
+    {
+        updateProgress();
+    }
 
-        mCurrentProgress.setText(String.format(Locale.US, "%s: %d%%", mCurrentTestCaseName, 100 * mCyclesCompleted / mCyclesPerRun));
-        mCurrentProgressBar.setProgress(mCyclesCompleted);
+    @Override
+    public void onTestCaseFinished(BenchmarkEngine.Handle handle, String testCase)
+    {
+        updateProgress();
     }
 
-    private void stopService()
+    @Override
+    public void onPlanFinished(BenchmarkEngine.Handle handle, boolean canceled)
     {
-        Intent intent = new Intent(getActivity(), BenchmarkService.class);
-        getActivity().stopService(intent);
+        mHandle = null;
+        dismiss();
+
+        // Notify
+        if (mListener == null) { return; }
+        if (canceled) { mListener.onBenchmarkCanceled(); }
+                 else { mListener.onBenchmarkFinished(handle.getResult()); }
     }
 
-    private class UpdateReceiver extends BroadcastReceiver
+    private void updateProgress()
     {
-        @Override
-        public void onReceive(Context context, Intent intent)
+        if (mHandle != null)
         {
-            String action = intent.getAction();
-
-            switch (action) {
-                case BenchmarkService.ACTION_START:
-                    mCurrentTestCaseName = intent.getStringExtra(BenchmarkService.EXTRA_TEST_CASE_NAME);
-                    break;
-
-                case BenchmarkService.ACTION_UPDATE:
-                    mCyclesCompleted = intent.getIntExtra(BenchmarkService.EXTRA_ITERATIONS, -1);
-                    if (mCyclesCompleted == -1 || mCasesCompleted > mCyclesPerRun)
-                    {
-                        throw new RuntimeException("Invalid count of completed cycles received");
-                    }
-                    break;
-
-                case BenchmarkService.ACTION_FINISHED:
-                    mCyclesCompleted = 0;
-                    mCasesCompleted++;
-
-                    // Notify
-                    if (mListener != null)
-                    {
-                        String name = intent.getStringExtra(BenchmarkService.EXTRA_TEST_CASE_NAME);
-                        String filename = intent.getStringExtra(BenchmarkService.EXTRA_FILENAME);
-                        mListener.onTestCaseCompleted(name, filename);
-                    }
-
-                    // Close
-                    if (mCasesCompleted == mCasesTotal)
-                    {
-                        stopService();
-                        dismiss();
-
-                        if (mListener != null) { mListener.onBenchmarkFinished(); }
-                    }
-                    break;
-
-                default:
-                    throw new RuntimeException("Received intent has unknown action!");
-            }
-
-            updateProgress();
+            mCurrentTestCaseName = mHandle.getTestCaseName();
+            mCasesCompleted = mHandle.getCasesCompleted();
+            mSleepMax = mHandle.getSleepMax();
+
+            // Soak runs may take more cycles than expected
+            mCyclesCompleted = Math.min(mHandle.getIterations(), mCyclesPerRun);
         }
+
+        int completedCycles = mCasesCompleted * mCyclesPerRun + mCyclesCompleted;
+
+        mTotalProgress.setText(String.format(Locale.US, "Total: %d%%", 100 * completedCycles / mCyclesTotal));
+        mTotalProgressBar.setProgress(mCasesCompleted * mCyclesPerRun + mCyclesCompleted);
+
+        mCurrentProgress.setText(String.format(Locale.US, "%s: %d%% (max. latency %d μs)", mCurrentTestCaseName, 100 * mCyclesCompleted / mCyclesPerRun, mSleepMax / 1000));
+        mCurrentProgressBar.setProgress(mCyclesCompleted);
     }
 
     /**
@@ -258,10 +224,8 @@ public void onReceive(Context context, Intent intent)
      */
     public interface OnProgressListener
     {
-        void onTestCaseCompleted(String name, String filename);
-
-        void onBenchmarkFinished();
+        void onBenchmarkFinished(BenchmarkResult result);
 
         void onBenchmarkCanceled();
     }
-}
\ No newline at end of file
+}
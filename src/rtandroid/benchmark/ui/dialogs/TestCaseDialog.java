@@ -34,8 +34,12 @@
 
 import com.google.gson.Gson;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import rtandroid.benchmark.utils.RealTimeUtils;
 import rtandroid.benchmark.R;
+import rtandroid.benchmark.data.StressLoad;
 import rtandroid.benchmark.data.TestCase;
 
 /**
@@ -44,6 +48,7 @@
 public class TestCaseDialog extends DialogFragment implements SeekBar.OnSeekBarChangeListener
 {
     private static final String ARG_CASE = "name";
+    private static final int STRESS_NONE = 0;
 
     private OnTestCaseUpdateListener mListener;
     private EditText mName;
@@ -52,6 +57,13 @@ public class TestCaseDialog extends DialogFragment implements SeekBar.OnSeekBarC
     private SeekBar mPowerLevel;
     private TextView mPowerLevelText;
     private Spinner mCpuLock;
+    private Spinner mWaitStrategy;
+    private SeekBar mSpinMargin;
+    private TextView mSpinMarginText;
+    private Spinner mStressLoad;
+    private Spinner mStressCore;
+    private SeekBar mStressPriority;
+    private TextView mStressPriorityText;
 
     private TestCase mOldTestCase;
 
@@ -105,6 +117,42 @@ public Dialog onCreateDialog(Bundle savedInstanceState)
         mCpuLock = (Spinner) v.findViewById(R.id.input_cpu_core);
         mCpuLock.setAdapter(adapter);
 
+        SpinnerAdapter strategyAdapter = new ArrayAdapter<String>(getActivity(), android.R.layout.simple_spinner_dropdown_item, TestCase.WAIT_STRATEGY_NAMES);
+        mWaitStrategy = (Spinner) v.findViewById(R.id.input_wait_strategy);
+        mWaitStrategy.setAdapter(strategyAdapter);
+
+        mSpinMargin = (SeekBar) v.findViewById(R.id.input_spin_margin);
+        mSpinMargin.setMax(TestCase.SPIN_MARGIN_MAX);
+        mSpinMargin.setProgress(TestCase.SPIN_MARGIN_DEFAULT);
+        mSpinMargin.setOnSeekBarChangeListener(this);
+        mSpinMarginText = (TextView) v.findViewById(R.id.txt_spin_margin);
+
+        // Either no load, a single type or all of them
+        int typeCount = StressLoad.TYPE_NAMES.length;
+        String[] stressValues = new String[typeCount + 2];
+        stressValues[STRESS_NONE] = "None";
+        for (int i = 0; i < typeCount; i++) { stressValues[i+1] = StressLoad.TYPE_NAMES[i]; }
+        stressValues[typeCount + 1] = "All";
+
+        SpinnerAdapter stressAdapter = new ArrayAdapter<String>(getActivity(), android.R.layout.simple_spinner_dropdown_item, stressValues);
+        mStressLoad = (Spinner) v.findViewById(R.id.input_stress_load);
+        mStressLoad.setAdapter(stressAdapter);
+
+        // Stressors may run on any core except the system core
+        int coreCount = Runtime.getRuntime().availableProcessors();
+        String[] coreValues = new String[Math.max(1, coreCount)];
+        coreValues[0] = "Any";
+        for (int i = TestCase.CORE_LOCK_MIN; i < coreCount; i++) { coreValues[i] = "Core " + i; }
+
+        SpinnerAdapter coreAdapter = new ArrayAdapter<String>(getActivity(), android.R.layout.simple_spinner_dropdown_item, coreValues);
+        mStressCore = (Spinner) v.findViewById(R.id.input_stress_core);
+        mStressCore.setAdapter(coreAdapter);
+
+        mStressPriority = (SeekBar) v.findViewById(R.id.input_stress_priority);
+        mStressPriority.setMax(TestCase.PRIORITY_MAX);
+        mStressPriority.setOnSeekBarChangeListener(this);
+        mStressPriorityText = (TextView) v.findViewById(R.id.txt_stress_priority);
+
         // fill with values
         Bundle args = getArguments();
         if (args != null)
@@ -116,6 +164,18 @@ public Dialog onCreateDialog(Bundle savedInstanceState)
             mName.setText(mOldTestCase.getName());
             mPriority.setProgress(mOldTestCase.getRealtimePriority());
             mPowerLevel.setProgress(mOldTestCase.getPowerLevel());
+            mWaitStrategy.setSelection(mOldTestCase.getWaitStrategy());
+            mSpinMargin.setProgress(mOldTestCase.getSpinMargin());
+
+            // All loads share the same core and priority
+            List<StressLoad> loads = mOldTestCase.getStressLoads();
+            if (!loads.isEmpty())
+            {
+                StressLoad load = loads.get(0);
+                mStressLoad.setSelection((loads.size() > 1) ? typeCount + 1 : load.getType() + 1);
+                if (load.getCpuCore() < coreCount) { mStressCore.setSelection(load.getCpuCore()); } // core[0] is any
+                if (load.getRealtimePriority() != TestCase.NO_PRIORITY) { mStressPriority.setProgress(load.getRealtimePriority()); }
+            }
 
             int core = mOldTestCase.getCpuCore();
             for (int i = 0; i < isolatedCpuIDs.length; i++)
@@ -130,6 +190,8 @@ public Dialog onCreateDialog(Bundle savedInstanceState)
 
         onProgressChanged(mPriority, mPriority.getProgress(), false);
         onProgressChanged(mPowerLevel, mPowerLevel.getProgress(), false);
+        onProgressChanged(mSpinMargin, mSpinMargin.getProgress(), false);
+        onProgressChanged(mStressPriority, mStressPriority.getProgress(), false);
 
         // Build dialog
         final AlertDialog dialog = new AlertDialog.Builder(getActivity())
@@ -167,16 +229,21 @@ public void onAttach(Activity activity)
     @Override
     public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser)
     {
-        if (seekBar == mPriority)
+        if (seekBar == mPriority || seekBar == mStressPriority)
         {
             String text = (progress == 0) ? "Disabled" : Integer.toString(progress);
-            mPriorityText.setText(text);
+            TextView textView = (seekBar == mPriority) ? mPriorityText : mStressPriorityText;
+            textView.setText(text);
         }
         else if (seekBar == mPowerLevel)
         {
             String text = (progress == 0) ? "Disabled" : Integer.toString(progress) + "%";
             mPowerLevelText.setText(text);
         }
+        else if (seekBar == mSpinMargin)
+        {
+            mSpinMarginText.setText(Integer.toString(progress) + " μs");
+        }
         else
         {
             throw new RuntimeException("Unknown seek bar event received");
@@ -211,6 +278,9 @@ private void onSubmit()
 
             if (mPriority.getProgress() != 0) { newTestCase.setPriority(mPriority.getProgress()); }
             if (mPowerLevel.getProgress() != 0) { newTestCase.setPowerLevel(mPowerLevel.getProgress()); }
+            newTestCase.setWaitStrategy(mWaitStrategy.getSelectedItemPosition());
+            newTestCase.setSpinMargin(mSpinMargin.getProgress());
+            newTestCase.setStressLoads(getStressLoads());
 
             mListener.onTestCaseUpdated(mOldTestCase, newTestCase);
         }
@@ -218,6 +288,24 @@ private void onSubmit()
         dismiss();
     }
 
+    private List<StressLoad> getStressLoads()
+    {
+        List<StressLoad> loads = new ArrayList<>();
+        int selection = mStressLoad.getSelectedItemPosition();
+        if (selection == STRESS_NONE) { return loads; }
+
+        int priority = (mStressPriority.getProgress() != 0) ? mStressPriority.getProgress() : TestCase.NO_PRIORITY;
+        int cpuCore = mStressCore.getSelectedItemPosition();
+
+        // The last entry selects all types
+        int typeCount = StressLoad.TYPE_NAMES.length;
+        int firstType = (selection > typeCount) ? StressLoad.TYPE_CPU : selection - 1;
+        int lastType = (selection > typeCount) ? typeCount - 1 : selection - 1;
+        for (int type = firstType; type <= lastType; type++) { loads.add(new StressLoad(type, priority, cpuCore)); }
+
+        return loads;
+    }
+
     /**
      * This interface must be implemented by target fragments that show this dialog to allow an passing of chosen value.
      */
@@ -36,8 +36,8 @@ public class HorizontalBarView extends View
     private final float mOffsetHorizontal;
     private final float mOffsetVertical;
 
-    private int mValue;
-    private int mMaxValue;
+    private long mValue;
+    private long mMaxValue;
     private final Paint mPaintPrimary;
     private final Paint mPaintSecondary;
 
@@ -69,6 +69,9 @@ public HorizontalBarView(Context context, AttributeSet attrs) {
     @Override
     protected void onDraw(Canvas canvas)
     {
+        // Negative values, e.g. a load which improved a result, are shown without a bar
+        if (mMaxValue <= 0 || mValue <= 0) { return; }
+
         float width = getWidth() / (mMaxValue * OVERHEAD) * mValue;
         canvas.drawRect(mOffsetHorizontal, mOffsetVertical, width + mOffsetHorizontal, getHeight(), mPaintSecondary);
         canvas.drawRect(0, 0, width, getHeight() - mOffsetVertical, mPaintPrimary);
@@ -78,23 +81,23 @@ protected void onDraw(Canvas canvas)
     // Member access
     //
 
-    public int getValue()
+    public long getValue()
     {
         return mValue;
     }
 
-    public void setValue(int value)
+    public void setValue(long value)
     {
         this.mValue = value;
         invalidate();
     }
 
-    public int getMaxValue()
+    public long getMaxValue()
     {
         return mMaxValue;
     }
 
-    public void setMaxValue(int max)
+    public void setMaxValue(long max)
     {
         this.mMaxValue = max;
         invalidate();
@@ -28,6 +28,7 @@
 
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import rtandroid.benchmark.R;
 
@@ -40,7 +41,10 @@ public class StatisticView extends LinearLayout
     private static final String KEY_NAME = "name";
     private static final String KEY_VALUE = "value";
     private static final String KEY_MAXIMUM = "maximum";
-    private static final String KEY_DISPLAY_MS = "display_ms";
+    private static final String KEY_DISPLAY_UNIT = "display_unit";
+    private static final int NO_DISPLAY_UNIT = -1;
+
+    private final boolean mCount;
 
     //
     // Constructors simply passing data forward
@@ -60,6 +64,7 @@ public StatisticView(Context context, AttributeSet attrs)
 
         TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.StatisticView, 0, 0);
         setTitle(a.getString(R.styleable.StatisticView_statisticTitle));
+        mCount = a.getBoolean(R.styleable.StatisticView_statisticCount, false);
         a.recycle();
     }
 
@@ -69,35 +74,44 @@ private void setTitle(String title)
         titleView.setText(title);
     }
 
-    public void setResult(Map<String, Integer> results)
+    /**
+     * @param results Values of all test cases in nanoseconds or plain numbers for counting views.
+     */
+    public void setResult(Map<String, Long> results)
     {
         TableLayout table = (TableLayout) findViewById(R.id.test_case_table);
         table.removeAllViewsInLayout();
 
-        // Find maximum and display unit
-        int max = 0;
-        boolean displayMs = true;
-        for (Integer value : results.values())
+        // Find maximum and the largest unit all values can be displayed in
+        long max = 0;
+        long smallest = Long.MAX_VALUE;
+        for (Long value : results.values())
         {
             max = Math.max(max, value);
-            displayMs = displayMs && (value > 1000);
+            if (value != 0) { smallest = Math.min(smallest, Math.abs(value)); }
+        }
+
+        TimeUnit displayUnit = mCount ? null : TimeUnit.SECONDS;
+        while (displayUnit != null && displayUnit != TimeUnit.NANOSECONDS && smallest < displayUnit.toNanos(1))
+        {
+            displayUnit = TimeUnit.values()[displayUnit.ordinal() - 1];
         }
 
         // Add values
-        for (Map.Entry<String, Integer> result : results.entrySet())
+        for (Map.Entry<String, Long> result : results.entrySet())
         {
-            addItem(result.getKey(), result.getValue(), max, displayMs);
+            addItem(result.getKey(), result.getValue(), max, displayUnit);
         }
     }
 
-    private void addItem(String name, int value, int max, boolean displayMs)
+    private void addItem(String name, long value, long max, TimeUnit displayUnit)
     {
         LayoutInflater inflater = LayoutInflater.from(getContext());
         TableLayout table = (TableLayout) findViewById(R.id.test_case_table);
 
         StatisticViewItem item = (StatisticViewItem) inflater.inflate(R.layout.view_statistic_item, this, false);
         item.setName(name);
-        item.setValue(value, displayMs);
+        item.setValue(value, displayUnit);
         item.setMaxValue(max);
         item.setPadding(40, 2, 20, 0);
         table.addView(item);
@@ -111,32 +125,27 @@ protected Parcelable onSaveInstanceState()
 
         TableLayout table = (TableLayout) findViewById(R.id.test_case_table);
         ArrayList<String> names = new ArrayList<>();
-        ArrayList<Integer> values = new ArrayList<>();
-        ArrayList<Integer> maximum = new ArrayList<>();
-        ArrayList<Boolean> displayMs = new ArrayList<>();
+        long[] values = new long[table.getChildCount()];
+        long[] maximum = new long[table.getChildCount()];
+        int[] displayUnit = new int[table.getChildCount()];
 
         for (int i = 0; i < table.getChildCount(); i++)
         {
             StatisticViewItem item = (StatisticViewItem) table.getChildAt(i);
             if (item != null)
             {
+                values[names.size()] = item.getValue();
+                maximum[names.size()] = item.getMaxValue();
+                TimeUnit unit = item.getDisplayUnit();
+                displayUnit[names.size()] = (unit != null) ? unit.ordinal() : NO_DISPLAY_UNIT;
                 names.add(item.getName());
-                values.add(item.getValue());
-                maximum.add(item.getMaxValue());
-                displayMs.add(item.isDisplayModeMs());
             }
         }
 
-        boolean[] displayMsArray = new boolean[displayMs.size()];
-        for (int i = 0; i < displayMs.size(); i++)
-        {
-            displayMsArray[i] = displayMs.get(i);
-        }
-
         bundle.putStringArrayList(KEY_NAME, names);
-        bundle.putIntegerArrayList(KEY_VALUE, values);
-        bundle.putIntegerArrayList(KEY_MAXIMUM, maximum);
-        bundle.putBooleanArray(KEY_DISPLAY_MS, displayMsArray);
+        bundle.putLongArray(KEY_VALUE, values);
+        bundle.putLongArray(KEY_MAXIMUM, maximum);
+        bundle.putIntArray(KEY_DISPLAY_UNIT, displayUnit);
 
         return bundle;
     }
@@ -149,13 +158,14 @@ protected void onRestoreInstanceState(Parcelable state)
             Bundle bundle = (Bundle) state;
 
             ArrayList<String> names = bundle.getStringArrayList(KEY_NAME);
-            ArrayList<Integer> values = bundle.getIntegerArrayList(KEY_VALUE);
-            ArrayList<Integer> maximum = bundle.getIntegerArrayList(KEY_MAXIMUM);
-            boolean[] displayMs = bundle.getBooleanArray(KEY_DISPLAY_MS);
+            long[] values = bundle.getLongArray(KEY_VALUE);
+            long[] maximum = bundle.getLongArray(KEY_MAXIMUM);
+            int[] displayUnit = bundle.getIntArray(KEY_DISPLAY_UNIT);
 
             for (int i = 0; i < names.size(); i++)
             {
-                addItem(names.get(i), values.get(i), maximum.get(i), displayMs[i]);
+                TimeUnit unit = (displayUnit[i] != NO_DISPLAY_UNIT) ? TimeUnit.values()[displayUnit[i]] : null;
+                addItem(names.get(i), values[i], maximum[i], unit);
             }
 
             state = bundle.getParcelable(KEY_SUPER);
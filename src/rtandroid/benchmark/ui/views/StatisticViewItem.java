@@ -22,6 +22,7 @@
 import android.widget.TextView;
 
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 import rtandroid.benchmark.R;
 
@@ -30,7 +31,7 @@
  */
 public class StatisticViewItem extends TableRow
 {
-    private boolean mDisplayModeMs;
+    private TimeUnit mDisplayUnit;
 
     //
     // Constructors simply passing data forward
@@ -58,49 +59,65 @@ public void setName(String name)
         testCaseName.setText(name);
     }
 
-    public int getValue()
+    public long getValue()
     {
         HorizontalBarView valueBar = (HorizontalBarView) findViewById(R.id.test_case_bar);
         return valueBar.getValue();
     }
 
-    public void setValue(int value, boolean displayMs)
+    /**
+     * @param value Value in nanoseconds.
+     * @param displayUnit Unit used to display the value or null for plain numbers.
+     */
+    public void setValue(long value, TimeUnit displayUnit)
     {
         HorizontalBarView valueBar = (HorizontalBarView) findViewById(R.id.test_case_bar);
         valueBar.setValue(value);
-        mDisplayModeMs = displayMs;
+        mDisplayUnit = displayUnit;
+
+        TextView resultValue = (TextView) findViewById(R.id.test_case_value);
+        if (displayUnit == null)
+        {
+            resultValue.setText(String.format(Locale.getDefault(), "%d", value));
+            return;
+        }
 
         String displayValue;
-        String unit;
-        if(displayMs)
+        if(displayUnit == TimeUnit.NANOSECONDS)
         {
-            displayValue = String.format(Locale.getDefault(), "%.1f", (float)value / 1000.0f);
-            unit = "ms";
+            displayValue = String.format(Locale.getDefault(), "%d", value);
         }
         else
         {
-            displayValue = String.format(Locale.getDefault(), "%d", value);
-            unit = "μs";
+            displayValue = String.format(Locale.getDefault(), "%.1f", (double)value / displayUnit.toNanos(1));
+        }
+
+        String unit;
+        switch (displayUnit)
+        {
+            case NANOSECONDS:  unit = "ns"; break;
+            case MICROSECONDS: unit = "μs"; break;
+            case MILLISECONDS: unit = "ms"; break;
+            default:           unit = "s";  break;
         }
 
-        TextView resultValue = (TextView) findViewById(R.id.test_case_value);
         resultValue.setText(String.format("%s %s", displayValue, unit));
     }
 
-    public int getMaxValue()
+    public long getMaxValue()
     {
         HorizontalBarView valueBar = (HorizontalBarView) findViewById(R.id.test_case_bar);
         return valueBar.getMaxValue();
     }
 
-    public void setMaxValue(int max)
+    public void setMaxValue(long max)
     {
         HorizontalBarView valueBar = (HorizontalBarView) findViewById(R.id.test_case_bar);
         valueBar.setMaxValue(max);
     }
 
-    public boolean isDisplayModeMs()
+    public TimeUnit getDisplayUnit()
     {
-        return mDisplayModeMs;
+        return mDisplayUnit;
     }
 }
@@ -25,6 +25,7 @@
 import android.widget.TextView;
 
 import rtandroid.benchmark.R;
+import rtandroid.benchmark.data.StressLoad;
 import rtandroid.benchmark.data.TestCase;
 
 /**
@@ -125,6 +126,14 @@ public void fill(TestCase testCase, boolean selected)
         {
             details.append("CPU core lock: ").append(cpuCore);
         }
+        details.append("\n");
+
+        details.append("Wait strategy: ").append(testCase.getWaitStrategyName());
+
+        for (StressLoad load : testCase.getStressLoads())
+        {
+            details.append("\n").append("Stress load: ").append(load.getName());
+        }
 
         mTestCase = testCase;
         mTitle.setText(testCase.getName());
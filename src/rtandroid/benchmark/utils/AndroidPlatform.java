@@ -14,10 +14,14 @@
  * limitations under the License.
  */
 
+
 package rtandroid.benchmark.utils;
 
-import android.util.Log;
+import android.content.Context;
+import android.os.Environment;
+import android.os.Process;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -28,19 +32,60 @@
 import rtandroid.thread.ForeignRealtimeThread;
 import rtandroid.thread.SchedulingPolicy;
 
-public class RealTimeUtils
+/**
+ * Runs the benchmark core on Android, using the RTAndroid API for all real-time features.
+ */
+public class AndroidPlatform extends Platform
 {
-    private static final String TAG = RealTimeUtils.class.getSimpleName();
+    private static final String TAG = AndroidPlatform.class.getSimpleName();
     private static final CpuPackage CPU_PACKAGE = CpuPackage.getCpuPackage();
 
-    public static void setPriority(int priority)
+    private final Context mContext;
+
+    private AndroidPlatform(Context context)
+    {
+        mContext = context.getApplicationContext();
+    }
+
+    /**
+     * Makes the core use this platform in the current process.
+     */
+    public static void install(Context context)
+    {
+        if (Platform.get() instanceof AndroidPlatform) { return; }
+        Platform.install(new AndroidPlatform(context));
+    }
+
+    @Override
+    public void log(int priority, String tag, String msg)
+    {
+        android.util.Log.println(priority, tag, msg);
+    }
+
+    @Override
+    public File getStorageDirectory()
+    {
+        return Environment.getExternalStorageDirectory();
+    }
+
+    @Override
+    public File getCacheDirectory()
+    {
+        return mContext.getCacheDir();
+    }
+
+    @Override
+    public void setBackgroundPriority()
     {
-        // nothing to set
-        if (priority == TestCase.NO_PRIORITY) { return; }
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+    }
 
+    @Override
+    public void setPriority(int priority)
+    {
         try
         {
-            int tid = android.os.Process.myTid();
+            int tid = Process.myTid();
             ForeignRealtimeThread realtimeThread = new ForeignRealtimeThread(tid);
 
             Log.d(TAG, "Setting the RT priority to " + priority);
@@ -50,11 +95,9 @@ public static void setPriority(int priority)
         catch (Exception e) { Log.e(TAG, "Failed to find RT extensions: " + e.getMessage()); }
     }
 
-    public static void setCpuCore(int cpuCoreID)
+    @Override
+    public void setCpuCore(int cpuCoreID)
     {
-        // nothing to set
-        if (cpuCoreID == TestCase.NO_CORE_LOCK) { return; }
-
         // is this a valid CPU?
         List<CpuCore> cpuCores = CPU_PACKAGE.getCpuCores();
         if (cpuCoreID >= cpuCores.size())
@@ -86,7 +129,7 @@ public static void setCpuCore(int cpuCoreID)
                 targetCore.wakeup();
             }
 
-            int tid = android.os.Process.myTid();
+            int tid = Process.myTid();
             ForeignRealtimeThread realtimeThread = new ForeignRealtimeThread(tid);
 
             Log.d(TAG, "Setting the CPU core to " + cpuCoreID);
@@ -96,11 +139,34 @@ public static void setCpuCore(int cpuCoreID)
         catch (Exception e) { Log.e(TAG, "Failed to find RT extensions: " + e.getMessage()); }
     }
 
-    public static void lockPowerLevel(int powerLevel)
+    @Override
+    public void setCpuCoresExcept(int cpuCoreID)
     {
-        // nothing to set
-        if (powerLevel == TestCase.NO_POWER_LEVEL) { return; }
+        // collect all other cores
+        List<CpuCore> affineCores = new ArrayList<>();
+        for (CpuCore core : CPU_PACKAGE.getCpuCores())
+          if (core.getID() != cpuCoreID) { affineCores.add(core); }
+
+        if (affineCores.isEmpty())
+        {
+            Log.e(TAG, "Can't keep thread away from CPU " + cpuCoreID + ": no other cores found");
+            return;
+        }
+
+        try
+        {
+            int tid = Process.myTid();
+            ForeignRealtimeThread realtimeThread = new ForeignRealtimeThread(tid);
 
+            Log.d(TAG, "Excluding the CPU core " + cpuCoreID);
+            realtimeThread.setAffinity(affineCores);
+        }
+        catch (Exception e) { Log.e(TAG, "Failed to find RT extensions: " + e.getMessage()); }
+    }
+
+    @Override
+    public void lockPowerLevel(int powerLevel)
+    {
         try
         {
             Log.d(TAG, "Locking power level at " + powerLevel + "%");
@@ -110,11 +176,9 @@ public static void lockPowerLevel(int powerLevel)
         catch (Exception e) { Log.e(TAG, "Failed to find RT extensions: " + e.getMessage()); }
     }
 
-    public static void unlockPowerLevel(int powerLevel)
+    @Override
+    public void unlockPowerLevel(int powerLevel)
     {
-        // nothing to reset
-        if (powerLevel == TestCase.NO_POWER_LEVEL) { return; }
-
         try
         {
             Log.d(TAG, "Unlocking power level from " + powerLevel + "%");
@@ -123,7 +187,8 @@ public static void unlockPowerLevel(int powerLevel)
         catch (Exception e) { Log.e(TAG, "Failed to find RT extensions: " + e.getMessage()); }
     }
 
-    public static Integer[] getIsolatedCpus()
+    @Override
+    public Integer[] getIsolatedCpus()
     {
         List<CpuCore> cpuCores = CPU_PACKAGE.getCpuCores();
         List<Integer> isolatedCpus = new ArrayList<Integer>();